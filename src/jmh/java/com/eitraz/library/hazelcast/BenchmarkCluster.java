@@ -0,0 +1,47 @@
+package com.eitraz.library.hazelcast;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded cluster of members in the same JVM, joining over TCP on the loopback interface so the benchmarks run
+ * offline
+ */
+class BenchmarkCluster {
+    private final List<HazelcastInstance> members = new ArrayList<>();
+
+    BenchmarkCluster(int size) {
+        for (int i = 0; i < size; i++) {
+            members.add(Hazelcast.newHazelcastInstance(config()));
+        }
+    }
+
+    HazelcastInstance getMember(int index) {
+        return members.get(index);
+    }
+
+    int size() {
+        return members.size();
+    }
+
+    void shutdown() {
+        members.forEach(HazelcastInstance::shutdown);
+        members.clear();
+    }
+
+    static Config config() {
+        Config config = HazelcastProxyDataSerializableFactory.configure(new Config());
+        config.setProperty("hazelcast.logging.type", "none");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        return config;
+    }
+}
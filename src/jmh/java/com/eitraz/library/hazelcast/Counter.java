@@ -0,0 +1,41 @@
+package com.eitraz.library.hazelcast;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proxied interface used by the benchmarks
+ */
+public interface Counter {
+    void increment();
+
+    void set(long value, String label);
+
+    long add(long delta);
+
+    @Dispatch(DispatchPolicy.LOCAL)
+    long get();
+
+    class CounterObject implements Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        @Override
+        public void set(long value, String label) {
+            this.value.set(value);
+        }
+
+        @Override
+        public long add(long delta) {
+            return value.addAndGet(delta);
+        }
+
+        @Override
+        public long get() {
+            return value.get();
+        }
+    }
+}
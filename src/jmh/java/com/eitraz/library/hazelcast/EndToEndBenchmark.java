@@ -0,0 +1,104 @@
+package com.eitraz.library.hazelcast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish to execute on an embedded cluster, calls are published by the first member and invoked on every member
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EndToEndBenchmark {
+    private static final int BATCH = 1000;
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    @Param({"2", "3"})
+    public int members;
+
+    @Param({"1", "16"})
+    public int batchSize;
+
+    private BenchmarkCluster cluster;
+    private final List<HazelcastProxy> proxies = new ArrayList<>();
+    private final List<Counter> counters = new ArrayList<>();
+    private Counter publisher;
+    private long expected;
+
+    @Setup
+    public void setup() {
+        cluster = new BenchmarkCluster(members);
+
+        for (int i = 0; i < cluster.size(); i++) {
+            HazelcastProxy proxy = new HazelcastProxy(cluster.getMember(i), "benchmark");
+            proxy.setBatchSize(batchSize);
+            proxy.doStart();
+            proxies.add(proxy);
+            counters.add(proxy.register("counter", new Counter.CounterObject()));
+        }
+
+        publisher = proxies.get(0).proxy(counters.get(0), Counter.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        proxies.forEach(HazelcastProxy::doStop);
+        proxies.clear();
+        counters.clear();
+        cluster.shutdown();
+    }
+
+    /**
+     * Calls executed per second on every member
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void throughput() {
+        for (int i = 0; i < BATCH; i++) {
+            publisher.increment();
+        }
+        expected += BATCH;
+        awaitAll();
+    }
+
+    /**
+     * Time from publish until executed on every member
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() {
+        publisher.increment();
+        expected++;
+        awaitAll();
+    }
+
+    private void awaitAll() {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        for (Counter counter : counters) {
+            while (counter.get() < expected) {
+                if (System.nanoTime() > deadline)
+                    throw new IllegalStateException("Calls not executed within timeout");
+                Thread.yield();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.eitraz.library.hazelcast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching a received call to the object, through the method table compared to reflection
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InvokeDispatchBenchmark {
+    private final Counter counter = new Counter.CounterObject();
+    private final Object[] args = {1L};
+
+    private final Object[] noArgs = {};
+
+    private MethodTable methodTable;
+    private int methodId;
+    private int incrementId;
+    private Method method;
+
+    @Setup
+    public void setup() throws Exception {
+        method = Counter.class.getMethod("add", long.class);
+        methodTable = new MethodTable(1, Counter.class);
+        methodId = methodTable.getMethodId(method);
+        incrementId = methodTable.getMethodId(Counter.class.getMethod("increment"));
+    }
+
+    @Benchmark
+    public long direct() {
+        return counter.add(1);
+    }
+
+    @Benchmark
+    public Object methodTable() throws Throwable {
+        return methodTable.invoke(methodId, counter, args);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(counter, args);
+    }
+
+    /**
+     * Calls per second before the method table, looking the method up by name and argument classes on every call
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object lookupPerCall() throws Exception {
+        List<Class<?>> parameterTypes = new ArrayList<>();
+        for (Object arg : noArgs) {
+            parameterTypes.add(arg.getClass());
+        }
+
+        Method method = counter.getClass().getMethod("increment", parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+        return method.invoke(counter, noArgs);
+    }
+
+    /**
+     * Calls per second through the method table, to compare with {@link #lookupPerCall()}
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object methodTablePerCall() throws Throwable {
+        return methodTable.invoke(incrementId, counter, noArgs);
+    }
+}
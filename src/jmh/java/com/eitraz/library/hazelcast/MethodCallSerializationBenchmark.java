@@ -0,0 +1,92 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCallBatch;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing method calls to and from the wire format
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MethodCallSerializationBenchmark {
+    private static final int BATCH_SIZE = 32;
+
+    @Param({"none", "primitive", "string"})
+    public String args;
+
+    private InternalSerializationService serialization;
+    private MethodCall methodCall;
+    private MethodCallBatch methodCallBatch;
+    private Data data;
+
+    @Setup
+    public void setup() {
+        serialization = new DefaultSerializationServiceBuilder()
+                .addDataSerializableFactory(HazelcastProxyDataSerializableFactory.FACTORY_ID, new HazelcastProxyDataSerializableFactory())
+                .build();
+
+        methodCall = new MethodCall("counter", 1, 0, createArgs(), true);
+
+        List<MethodCall> methodCalls = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            methodCalls.add(methodCall);
+        }
+        methodCallBatch = new MethodCallBatch(methodCalls);
+
+        data = serialization.toData(methodCall);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serialization.dispose();
+    }
+
+    @Benchmark
+    public Data serialize() {
+        return serialization.toData(methodCall);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serialization.toObject(data);
+    }
+
+    @Benchmark
+    public Data serializeBatch() {
+        return serialization.toData(methodCallBatch);
+    }
+
+    private Object[] createArgs() {
+        switch (args) {
+            case "primitive":
+                return new Object[]{42L};
+            case "string":
+                return new Object[]{42L, "benchmark label"};
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.eitraz.library.hazelcast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a proxied call on the calling thread, compared to calling the object directly
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ProxyInvocationBenchmark {
+    @Param({"false", "true"})
+    public boolean asyncPublish;
+
+    private BenchmarkCluster cluster;
+    private HazelcastProxy proxy;
+    private Counter counter;
+    private Counter proxied;
+
+    @Setup
+    public void setup() {
+        cluster = new BenchmarkCluster(1);
+
+        proxy = new HazelcastProxy(cluster.getMember(0), "benchmark");
+        proxy.setAsyncPublish(asyncPublish);
+        proxy.setPublishOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+        proxy.setQueueCapacity(100_000);
+        proxy.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+        proxy.doStart();
+
+        counter = proxy.register("counter", new Counter.CounterObject());
+        proxied = proxy.proxy(counter, Counter.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        proxy.doStop();
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    public long direct() {
+        return counter.add(1);
+    }
+
+    /**
+     * {@link DispatchPolicy#LOCAL} method, nothing is published
+     */
+    @Benchmark
+    public long local() {
+        return proxied.get();
+    }
+
+    /**
+     * Void method published to every member
+     */
+    @Benchmark
+    public void publishVoid() {
+        proxied.increment();
+    }
+
+    /**
+     * Invoked locally and published to the other members
+     */
+    @Benchmark
+    public long publishReturnValue() {
+        return proxied.add(1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.eitraz.library;
+
+/**
+ * How a {@link TimeoutHandler} removes timed out values
+ */
+public enum ExpiryMode {
+    /**
+     * Scan the whole cache on the calling thread once in a while
+     */
+    SCAN,
+
+    /**
+     * Remove a few timed out values on every call, in amortized constant time
+     */
+    INCREMENTAL,
+
+    /**
+     * Remove timed out values on a background thread, see {@link TimeoutHandler#doStop()}
+     */
+    BACKGROUND
+}
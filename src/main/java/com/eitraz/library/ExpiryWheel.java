@@ -0,0 +1,171 @@
+package com.eitraz.library;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hashed timing wheel removing timed out values from a cache of deadlines.
+ * <p>
+ * Each value in the cache is scheduled once, in the bucket of its deadline, when added. When renewed the value
+ * stays where it is and is moved to the bucket of its new deadline only when its old bucket comes due, so renewing
+ * costs nothing here. A bucket is expired once its tick has passed; values past their deadline are removed unless
+ * renewed meanwhile, the others are scheduled again. Deadlines beyond the wheel go around it until due.
+ * <p>
+ * Walking the buckets from the next due also finds the values closest to their deadline, to evict when the cache
+ * is full.
+ */
+class ExpiryWheel<T> {
+    private static final int BUCKETS = 256;
+    private static final int MASK = BUCKETS - 1;
+
+    private final Map<T, Long> cache;
+    private final long tickMillis;
+    private final AtomicReferenceArray<Queue<T>> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final AtomicBoolean expiring = new AtomicBoolean();
+
+    // Written while holding expiring
+    private volatile long nextTick;
+    private Queue<T> draining;
+
+    /**
+     * @param cache      deadlines in milliseconds by value
+     * @param tickMillis width of a bucket, timed out values are removed at most one tick late
+     */
+    ExpiryWheel(Map<T, Long> cache, long tickMillis, long time) {
+        this.cache = cache;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.nextTick = time / this.tickMillis;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Schedule every value in the cache, values scheduled meanwhile may be scheduled twice
+     */
+    void scheduleAll() {
+        // Values already timed out are due on the first tick instead of a lap later
+        long firstDeadline = nextTick * tickMillis;
+        cache.forEach((value, deadline) -> schedule(value, Math.max(deadline, firstDeadline)));
+    }
+
+    /**
+     * @param value    value added to the cache
+     * @param deadline deadline of the value
+     */
+    void schedule(T value, long deadline) {
+        buckets.get((int) (deadline / tickMillis) & MASK).offer(value);
+    }
+
+    /**
+     * Expire values in passed ticks, by one caller at a time while the others carry on
+     *
+     * @param budget max number of values to look at
+     * @return number of values looked at
+     */
+    int expire(long time, int budget) {
+        if (!expiring.compareAndSet(false, true))
+            return 0;
+
+        try {
+            long lastTick = time / tickMillis - 1;
+
+            // All buckets passed at least once
+            if (lastTick - nextTick >= BUCKETS)
+                nextTick = lastTick - BUCKETS + 1;
+
+            int processed = 0;
+            while (processed < budget) {
+                if (draining == null) {
+                    if (nextTick > lastTick)
+                        break;
+
+                    // Values scheduled from now on go to a fresh queue
+                    draining = buckets.getAndSet((int) (nextTick & MASK), new ConcurrentLinkedQueue<>());
+                    nextTick++;
+                }
+
+                T value = draining.poll();
+                if (value == null) {
+                    draining = null;
+                    continue;
+                }
+
+                expire(value, time);
+                processed++;
+            }
+            return processed;
+        } finally {
+            expiring.set(false);
+        }
+    }
+
+    /**
+     * Remove the value closest to its deadline. Runs alongside expiring and other evictions, values already taken
+     * for expiring are left to it.
+     *
+     * @param budget max number of values to look at, the last value looked at is removed even if renewed
+     * @return true if a value was removed, false if none was found
+     */
+    boolean evict(int budget) {
+        long firstTick = nextTick;
+
+        int processed = 0;
+        for (int i = 0; i < BUCKETS && processed < budget; i++) {
+            long tick = firstTick + i;
+            Queue<T> bucket = buckets.get((int) (tick & MASK));
+
+            T value;
+            while (processed < budget && (value = bucket.poll()) != null) {
+                processed++;
+
+                // Removed elsewhere
+                Long deadline = cache.get(value);
+                if (deadline == null)
+                    continue;
+
+                // Renewed or due on a later lap, unless out of budget
+                if (deadline / tickMillis > tick && processed < budget) {
+                    schedule(value, deadline);
+                    continue;
+                }
+
+                if (cache.remove(value, deadline))
+                    return true;
+
+                // Renewed meanwhile, unless removed elsewhere
+                Long renewed = cache.get(value);
+                if (renewed != null)
+                    schedule(value, renewed);
+            }
+        }
+        return false;
+    }
+
+    private void expire(T value, long time) {
+        while (true) {
+            Long deadline = cache.get(value);
+
+            // Removed elsewhere
+            if (deadline == null)
+                return;
+
+            if (deadline > time) {
+                schedule(value, deadline);
+                return;
+            }
+
+            // Renewed meanwhile if not removed
+            if (cache.remove(value, deadline))
+                return;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.eitraz.library;
+
+/**
+ * {@link TimeoutHandler} for int values without boxing, see {@link LongTimeoutHandler}
+ */
+public class IntTimeoutHandler {
+    private final LongTimeoutHandler handler;
+
+    public IntTimeoutHandler() {
+        handler = new LongTimeoutHandler();
+    }
+
+    public IntTimeoutHandler(Duration timeout) {
+        handler = new LongTimeoutHandler(timeout);
+    }
+
+    /**
+     * @param capacity expected number of values waiting at the same time
+     * @param direct   true to keep the tables off heap
+     */
+    public IntTimeoutHandler(Duration timeout, int capacity, boolean direct) {
+        handler = new LongTimeoutHandler(timeout, capacity, direct);
+    }
+
+    /**
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return handler.getTimeout();
+    }
+
+    /**
+     * @param timeout the timeout to set
+     */
+    public void setTimeout(Duration timeout) {
+        handler.setTimeout(timeout);
+    }
+
+    /**
+     * @return true if value is timed out
+     */
+    public boolean isReady(int value) {
+        return handler.isReady(value);
+    }
+
+    /**
+     * @return number of values held, including timed out values not yet dropped
+     */
+    public int size() {
+        return handler.size();
+    }
+}
@@ -0,0 +1,273 @@
+package com.eitraz.library;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * {@link TimeoutHandler} for long values without boxing.
+ * <p>
+ * Values and deadlines are kept in open addressing tables of longs, 16 bytes per slot at a load between one half and
+ * three quarters, on the heap or off heap in direct buffers. Tables are striped by value, callers on different
+ * stripes run in parallel. Checking a value does not allocate. Timed out values are dropped in place when a table
+ * fills up, the table grows if still too full and shrinks only when far too large, so buffers are rarely replaced.
+ * A table at its max capacity holding only values still waiting rejects new values with
+ * {@link IllegalStateException} until values time out.
+ */
+public class LongTimeoutHandler {
+    private static final Duration DEFAULT_TIMEOUT = Duration.ONE_SECOND;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MIN_STRIPE_CAPACITY = 16;
+    private static final int MAX_STRIPE_CAPACITY = 1 << 26;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private volatile Duration timeout;
+
+    public LongTimeoutHandler() {
+        this(DEFAULT_TIMEOUT);
+    }
+
+    public LongTimeoutHandler(Duration timeout) {
+        this(timeout, DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * @param capacity expected number of values waiting at the same time
+     * @param direct   true to keep the tables off heap
+     */
+    public LongTimeoutHandler(Duration timeout, int capacity, boolean direct) {
+        setTimeout(timeout);
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4) * 2 - 1);
+        int stripeCapacity = Math.max(MIN_STRIPE_CAPACITY, tableSize(capacity / stripeCount));
+
+        stripes = new Stripe[stripeCount];
+        stripeMask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(stripeCapacity, direct);
+        }
+    }
+
+    /**
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout the timeout to set
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return true if value is timed out
+     */
+    public boolean isReady(long value) {
+        long time = System.currentTimeMillis();
+        long hash = hash(value);
+        return stripes[(int) (hash >>> 40) & stripeMask].isReady(value, hash, time, time + getTimeout().toMillis());
+    }
+
+    /**
+     * @return number of values held, including timed out values not yet dropped
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return number of slots in the tables, each taking 16 bytes
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Stripe stripe : stripes) {
+            capacity += stripe.capacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * @return table size holding the values at a load of at most one half
+     */
+    private static int tableSize(int values) {
+        long size = Math.max(2, (long) values * 2);
+        return (int) Math.min(MAX_STRIPE_CAPACITY, Long.highestOneBit(size - 1) << 1);
+    }
+
+    private static long hash(long value) {
+        // Murmur3 finalizer
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Open addressing table with linear probing, a slot is a value followed by its deadline, deadline 0 marks
+     * an empty slot
+     */
+    private static final class Stripe {
+        private final int minCapacity;
+        private final boolean direct;
+
+        private LongBuffer table;
+        private int mask;
+        private int size;
+        private int threshold;
+
+        // No value can be dropped before this time
+        private long earliestDeadline;
+
+        private Stripe(int capacity, boolean direct) {
+            this.minCapacity = capacity;
+            this.direct = direct;
+            allocate(capacity);
+        }
+
+        private synchronized boolean isReady(long value, long hash, long time, long deadline) {
+            // Full at max capacity, wait for a value to time out instead of scanning on every call
+            if (size >= threshold && (mask + 1 < MAX_STRIPE_CAPACITY || time > earliestDeadline))
+                rehash(time);
+
+            int slot = (int) hash & mask;
+            while (true) {
+                int index = slot << 1;
+                long previous = table.get(index + 1);
+
+                // New value
+                if (previous == 0) {
+                    if (size >= threshold)
+                        throw new IllegalStateException(String.format("Unable to hold more than %d values waiting", size));
+
+                    table.put(index, value);
+                    table.put(index + 1, deadline);
+                    size++;
+                    return true;
+                }
+
+                if (table.get(index) == value) {
+                    table.put(index + 1, deadline);
+                    return previous < time;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized int capacity() {
+            return mask + 1;
+        }
+
+        /**
+         * Drop timed out values, resizing to hold the remaining values at a load of at most one half
+         */
+        private void rehash(long time) {
+            LongBuffer previous = table;
+            int previousCapacity = mask + 1;
+
+            int waiting = 0;
+            long earliest = Long.MAX_VALUE;
+            for (int slot = 0; slot < previousCapacity; slot++) {
+                long deadline = previous.get((slot << 1) + 1);
+                if (deadline >= time) {
+                    waiting++;
+                    earliest = Math.min(earliest, deadline);
+                }
+            }
+            earliestDeadline = earliest;
+
+            // Shrink only when far too large, a new buffer is allocated on every resize
+            int capacity = Math.max(minCapacity, tableSize(waiting));
+            if (capacity < previousCapacity && capacity * 2 >= previousCapacity)
+                capacity = previousCapacity;
+
+            if (capacity == previousCapacity) {
+                drop(time);
+                return;
+            }
+
+            allocate(capacity);
+
+            for (int slot = 0; slot < previousCapacity; slot++) {
+                long deadline = previous.get((slot << 1) + 1);
+                if (deadline >= time) {
+                    long value = previous.get(slot << 1);
+
+                    int index = (int) hash(value) & mask;
+                    while (table.get((index << 1) + 1) != 0)
+                        index = (index + 1) & mask;
+
+                    table.put(index << 1, value);
+                    table.put((index << 1) + 1, deadline);
+                }
+            }
+            size = waiting;
+        }
+
+        /**
+         * Drop timed out values in place, shifting back the values probed past them
+         */
+        private void drop(long time) {
+            int slot = 0;
+            while (slot <= mask) {
+                long deadline = table.get((slot << 1) + 1);
+
+                // Check the slot again, a value may have been shifted into it
+                if (deadline != 0 && deadline < time)
+                    remove(slot);
+                else
+                    slot++;
+            }
+        }
+
+        private void remove(int slot) {
+            int empty = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+
+                long deadline = table.get((next << 1) + 1);
+                if (deadline == 0)
+                    break;
+
+                // Stays if its home slot is cyclically after the emptied slot
+                long value = table.get(next << 1);
+                int home = (int) hash(value) & mask;
+                if (empty <= next ? empty < home && home <= next : empty < home || home <= next)
+                    continue;
+
+                table.put(empty << 1, value);
+                table.put((empty << 1) + 1, deadline);
+                empty = next;
+            }
+
+            table.put(empty << 1, 0);
+            table.put((empty << 1) + 1, 0);
+            size--;
+        }
+
+        private void allocate(int capacity) {
+            table = direct
+                    ? ByteBuffer.allocateDirect(capacity * 2 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                    : LongBuffer.allocate(capacity * 2);
+            mask = capacity - 1;
+            size = 0;
+            threshold = capacity / 4 * 3;
+        }
+    }
+}
@@ -1,12 +1,28 @@
 package com.eitraz.library;
 
+import com.eitraz.library.lifecycle.Stopable;
 import org.apache.log4j.Logger;
 
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-
-public class TimeoutHandler<T> {
+/**
+ * Tells whether a value has been quiet for the timeout. Thread safe without locking when the cache is a
+ * {@link ConcurrentMap}, other maps are synchronized.
+ */
+public class TimeoutHandler<T> implements Stopable {
     private static final Logger logger = Logger.getLogger(TimeoutHandler.class);
 
     private static final Duration DEFAULT_TIMEOUT = Duration.ONE_SECOND;
@@ -14,10 +30,35 @@ public class TimeoutHandler<T> {
     private static final int MAX_CLEAN_TIMEOUT = 600000;
     private static final long CLEAN_TIMEOUT_MULTIPLIER = 60 * 5;
 
-    private long cacheClearTime = System.currentTimeMillis();
+    private static final int TICKS_PER_TIMEOUT = 64;
+    private static final int INCREMENTAL_BUDGET = 2;
+
+    private static final int EVICTION_BUDGET = 16;
+    private static final int EVICTION_SAMPLES = 5;
+    private static final int MAX_EVICTIONS_PER_CALL = 2;
+    private static final int MAX_RANDOM_SKIP = 64;
+
+    /**
+     * Ticker shared by handlers using {@link ExpiryMode#BACKGROUND}
+     */
+    private static final ScheduledExecutorService TICKER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TimeoutHandler expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong cacheClearTime = new AtomicLong(System.currentTimeMillis());
     private final Map<T, Long> cache;
+    private final ExpiryMode expiryMode;
+    private volatile ExpiryWheel<T> expiryWheel;
+    private ScheduledFuture<?> ticker;
+    private boolean stopped;
 
-    private Duration timeout;
+    private final Object evictionLock = new Object();
+    private Iterator<Map.Entry<T, Long>> evictionHand;
+
+    private volatile Duration timeout;
+    private volatile int maxSize = Integer.MAX_VALUE;
 
     public TimeoutHandler() {
         this(DEFAULT_TIMEOUT);
@@ -28,8 +69,39 @@ public class TimeoutHandler<T> {
     }
 
     public TimeoutHandler(Duration timeout, Map<T, Long> cache) {
+        this(timeout, cache, ExpiryMode.SCAN);
+    }
+
+    public TimeoutHandler(Duration timeout, ExpiryMode expiryMode) {
+        this(timeout, new ConcurrentHashMap<>(), expiryMode);
+    }
+
+    /**
+     * @param expiryMode how timed out values are removed, {@link ExpiryMode#BACKGROUND} must be stopped with
+     *                   {@link #doStop()} when no longer used
+     */
+    public TimeoutHandler(Duration timeout, Map<T, Long> cache, ExpiryMode expiryMode) {
+        this.cache = cache instanceof ConcurrentMap ? cache : Collections.synchronizedMap(cache);
+        this.expiryMode = expiryMode;
         setTimeout(timeout);
-        this.cache = cache;
+    }
+
+    /**
+     * @return how timed out values are removed
+     */
+    public ExpiryMode getExpiryMode() {
+        return expiryMode;
+    }
+
+    /**
+     * Stop removing timed out values in the background
+     */
+    @Override
+    public synchronized void doStop() {
+        stopped = true;
+
+        if (ticker != null)
+            ticker.cancel(false);
     }
 
     /**
@@ -40,60 +112,294 @@ public class TimeoutHandler<T> {
     }
 
     /**
+     * The ticks of {@link ExpiryMode#INCREMENTAL} and {@link ExpiryMode#BACKGROUND} expiry follow the timeout,
+     * changing it reschedules every value held.
+     *
      * @param timeout the timeout to set
      */
     public void setTimeout(Duration timeout) {
         this.timeout = timeout;
+
+        if (expiryMode != ExpiryMode.SCAN)
+            startWheel(timeout);
+    }
+
+    /**
+     * @return max number of values held
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Values closest to their deadline, the least recently checked, are evicted first when full. An evicted value
+     * is ready the next time it is checked.
+     *
+     * @param maxSize max number of values held, {@link Integer#MAX_VALUE} for unbounded
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Max size must be at least 1");
+
+        this.maxSize = maxSize;
     }
 
     /**
      * @return true if value is timed out
      */
-    public synchronized boolean isReady(T value) {
-        // Clean up values left behind
-        clean();
+    public boolean isReady(T value) {
+        long time = System.currentTimeMillis();
+        expire(time, 1);
+        return isReady(value, time, time + getTimeout().toMillis());
+    }
 
-        // Get timeout value
-        Long timeout = cache.get(value);
+    /**
+     * @return values timed out, by their position in iteration order
+     */
+    public BitSet isReady(Collection<? extends T> values) {
+        return isReady(values, new BitSet(values.size()));
+    }
+
+    /**
+     * Check a batch of values as if one by one, at the same time
+     *
+     * @param ready set to reuse, cleared before use
+     * @return the set, with the positions of timed out values in iteration order set
+     */
+    public BitSet isReady(Collection<? extends T> values, BitSet ready) {
+        ready.clear();
 
         long time = System.currentTimeMillis();
+        expire(time, values.size());
+        long deadline = time + getTimeout().toMillis();
 
-        // Timed out
-        if (timeout != null && timeout < time) {
-            timeout = null;
+        // Lock a non concurrent cache once for the whole batch
+        if (cache instanceof ConcurrentMap) {
+            int i = 0;
+            for (T value : values) {
+                ready.set(i++, isReady(value, time, deadline));
+            }
+        } else {
+            synchronized (cache) {
+                int i = 0;
+                for (T value : values) {
+                    ready.set(i++, isReady(value, time, deadline));
+                }
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Check a batch of values as if one by one, at the same time
+     *
+     * @param ready array to reuse, a new array is created if null or shorter than the values
+     * @return the array, true at the positions of timed out values
+     */
+    public boolean[] isReady(T[] values, boolean[] ready) {
+        if (ready == null || ready.length < values.length)
+            ready = new boolean[values.length];
+
+        long time = System.currentTimeMillis();
+        expire(time, values.length);
+        long deadline = time + getTimeout().toMillis();
+
+        // Lock a non concurrent cache once for the whole batch
+        if (cache instanceof ConcurrentMap) {
+            for (int i = 0; i < values.length; i++) {
+                ready[i] = isReady(values[i], time, deadline);
+            }
+        } else {
+            synchronized (cache) {
+                for (int i = 0; i < values.length; i++) {
+                    ready[i] = isReady(values[i], time, deadline);
+                }
+            }
         }
+        return ready;
+    }
+
+    private boolean isReady(T value, long time, long deadline) {
+        // Set timeout value, getting the previous in the same atomic operation
+        Long timeout = cache.put(value, deadline);
+
+        // New value, renewed values are rescheduled when their old deadline comes due
+        if (timeout == null && expiryMode != ExpiryMode.SCAN)
+            schedule(value, deadline);
+
+        // New value may exceed the max size
+        if (timeout == null && maxSize < Integer.MAX_VALUE)
+            evict(maxSize);
+
+        // Timed out
+        boolean ready = timeout == null || timeout < time;
 
         if (logger.isTraceEnabled())
-            logger.trace(String.format("'%s' timed out: %s", value, timeout == null));
+            logger.trace(String.format("'%s' timed out: %s", value, ready));
+
+        return ready;
+    }
+
+    /**
+     * Replace the wheel by one ticking at a fraction of the timeout
+     */
+    private synchronized void startWheel(Duration timeout) {
+        long tickMillis = Math.max(1, timeout.toMillis() / TICKS_PER_TIMEOUT);
+        if (expiryWheel != null && expiryWheel.getTickMillis() == tickMillis)
+            return;
 
-        // Set timeout value
-        cache.put(value, time + getTimeout().toMillis());
+        // Values added from now on are scheduled on the new wheel, values held before are scheduled here
+        ExpiryWheel<T> wheel = new ExpiryWheel<>(cache, tickMillis, System.currentTimeMillis());
+        expiryWheel = wheel;
+        wheel.scheduleAll();
 
-        // Return true if value is timed out
-        return timeout == null;
+        if (ticker != null)
+            ticker.cancel(false);
+        ticker = expiryMode == ExpiryMode.BACKGROUND && !stopped ? Ticker.schedule(wheel, tickMillis) : null;
     }
 
     /**
-     * Clean up values left behind
+     * Schedule a new value on the wheel
      */
-    private void clean() {
-        long time = System.currentTimeMillis();
+    private void schedule(T value, long deadline) {
+        ExpiryWheel<T> wheel = expiryWheel;
+        wheel.schedule(value, deadline);
+
+        // Replaced meanwhile, the value may have been added after the new wheel scheduled the values held
+        ExpiryWheel<T> current = expiryWheel;
+        if (current != wheel)
+            current.schedule(value, deadline);
+    }
+
+    /**
+     * Clean up values left behind, once per call however many values are checked
+     *
+     * @param values number of values checked, incremental expiry does a share of the work per value
+     */
+    private void expire(long time, int values) {
+        if (expiryMode == ExpiryMode.SCAN)
+            clean(time);
+        else if (expiryMode == ExpiryMode.INCREMENTAL)
+            expiryWheel.expire(time, (int) Math.min(Integer.MAX_VALUE, (long) INCREMENTAL_BUDGET * values));
+    }
+
+    /**
+     * Clean up values left behind, by one caller at a time while the others carry on
+     */
+    private void clean(long time) {
+        long clearTime = cacheClearTime.get();
 
         // Don't clean to often
-        if (cacheClearTime + Math.min(getTimeout().toMillis() * CLEAN_TIMEOUT_MULTIPLIER, MAX_CLEAN_TIMEOUT) < time) {
+        if (clearTime + Math.min(getTimeout().toMillis() * CLEAN_TIMEOUT_MULTIPLIER, MAX_CLEAN_TIMEOUT) < time
+                && cacheClearTime.compareAndSet(clearTime, time)) {
             if (logger.isDebugEnabled())
                 logger.debug("Cleaning cache (values before clean: " + cache.size());
 
-            // Remove if timed out
-            cache.entrySet().stream()
-                    .filter(entry -> entry.getValue() <= time)
-                    .forEach(entry -> cache.remove(entry.getKey()));
+            // Remove if timed out, unless set again meanwhile
+            if (cache instanceof ConcurrentMap) {
+                cache.forEach((value, timeout) -> {
+                    if (timeout <= time)
+                        cache.remove(value, timeout);
+                });
+            } else {
+                synchronized (cache) {
+                    cache.values().removeIf(timeout -> timeout <= time);
+                }
+            }
 
             if (logger.isDebugEnabled())
                 logger.debug("Values after clean: " + cache.size());
+        }
+    }
 
-            cacheClearTime = time;
+    /**
+     * Evict values until within max size, concurrent callers adding values evict for themselves
+     */
+    private void evict(int maxSize) {
+        for (int i = 0; i < MAX_EVICTIONS_PER_CALL && cache.size() > maxSize; i++) {
+            // Closest to deadline from the wheel, which must see every value removed or the value is scheduled twice
+            if (expiryMode != ExpiryMode.SCAN) {
+                if (!expiryWheel.evict(EVICTION_BUDGET))
+                    return;
+            } else if (cache instanceof ConcurrentMap) {
+                synchronized (evictionLock) {
+                    evictSampled();
+                }
+            } else {
+                synchronized (cache) {
+                    evictSampled();
+                }
+            }
         }
     }
 
+    /**
+     * Evict the earliest deadline of a few sampled values
+     */
+    private void evictSampled() {
+        Iterator<Map.Entry<T, Long>> entries;
+        if (cache instanceof ConcurrentMap) {
+            // Continue where the last sample ended, going around the cache
+            if (evictionHand == null || !evictionHand.hasNext())
+                evictionHand = cache.entrySet().iterator();
+            entries = evictionHand;
+        } else {
+            // Iterators fail once the cache is modified, start at a random value instead
+            entries = cache.entrySet().iterator();
+            int skip = ThreadLocalRandom.current().nextInt(Math.min(cache.size(), MAX_RANDOM_SKIP) + 1);
+            for (int i = 0; i < skip && entries.hasNext(); i++) {
+                entries.next();
+            }
+        }
+
+        T evicted = null;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLES && entries.hasNext(); i++) {
+            Map.Entry<T, Long> entry = entries.next();
+            if (entry.getValue() < earliest) {
+                evicted = entry.getKey();
+                earliest = entry.getValue();
+            }
+        }
+
+        if (evicted != null) {
+            cache.remove(evicted, earliest);
+
+            if (logger.isTraceEnabled())
+                logger.trace(String.format("'%s' evicted", evicted));
+        }
+    }
+
+    /**
+     * Expires a wheel on the shared ticker until the wheel is garbage collected or the handler stopped
+     */
+    private static final class Ticker implements Runnable {
+        private final WeakReference<ExpiryWheel<?>> wheel;
+        private volatile ScheduledFuture<?> future;
+
+        private Ticker(ExpiryWheel<?> wheel) {
+            this.wheel = new WeakReference<>(wheel);
+        }
+
+        static ScheduledFuture<?> schedule(ExpiryWheel<?> wheel, long tickMillis) {
+            Ticker ticker = new Ticker(wheel);
+            ticker.future = TICKER.scheduleAtFixedRate(ticker, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+            return ticker.future;
+        }
+
+        @Override
+        public void run() {
+            ExpiryWheel<?> wheel = this.wheel.get();
+
+            if (wheel != null) {
+                try {
+                    wheel.expire(System.currentTimeMillis(), Integer.MAX_VALUE);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to expire values", e);
+                }
+            } else if (future != null) {
+                future.cancel(false);
+            }
+        }
+    }
 }
@@ -0,0 +1,198 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands method calls from the calling threads to a publisher thread, which serializes and sends them.
+ * Offering a call never takes a lock, the caller only pays for an enqueue. Calls are published in the order
+ * they were offered, calls queued since the last publish are published together.
+ * <p>
+ * Once stopped, or if the publisher thread has exited, calls are published on the calling thread instead.
+ */
+class AsyncPublisher {
+    private static final Logger logger = Logger.getLogger(AsyncPublisher.class);
+
+    private static final int MAX_DRAIN = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Consumer<List<MethodCall>> publisher;
+
+    private final Queue<MethodCall> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile Thread thread;
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    AsyncPublisher(int capacity, OverflowPolicy overflowPolicy, Consumer<List<MethodCall>> publisher) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.publisher = publisher;
+    }
+
+    /**
+     * @param methodCall call to publish
+     * @return call that was dropped or rejected because the queue is full, null if none
+     */
+    MethodCall offer(MethodCall methodCall) {
+        if (closed)
+            return publishDirectly(methodCall);
+
+        MethodCall overflow = null;
+
+        while (!reserve()) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                // Nothing left to wait for
+                if (closed)
+                    return publishDirectly(methodCall);
+
+                wakeUp();
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                // Take over the slot of the oldest call
+                overflow = pending.poll();
+                if (overflow != null)
+                    break;
+            } else {
+                return methodCall;
+            }
+        }
+
+        pending.offer(methodCall);
+        wakeUp();
+
+        // Stopped meanwhile, the call may have been missed by the last drain
+        if (closed)
+            publishPending();
+
+        return overflow;
+    }
+
+    /**
+     * @return number of calls waiting to be published
+     */
+    int size() {
+        return size.get();
+    }
+
+    synchronized void start() {
+        if (thread == null) {
+            closed = false;
+            thread = new Thread(this::run, "HazelcastProxy async publisher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop and publish any calls left behind
+     */
+    synchronized void stop() {
+        Thread stopped = thread;
+        thread = null;
+        closed = true;
+
+        if (stopped != null) {
+            LockSupport.unpark(stopped);
+            try {
+                stopped.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        publishPending();
+    }
+
+    /**
+     * Publish on the calling thread, after any calls left behind
+     */
+    private MethodCall publishDirectly(MethodCall methodCall) {
+        publishPending();
+        publisher.accept(Collections.singletonList(methodCall));
+        return null;
+    }
+
+    private void publishPending() {
+        List<MethodCall> calls = new ArrayList<>();
+        while (drainTo(calls) > 0) {
+            publisher.accept(calls);
+            calls = new ArrayList<>();
+        }
+    }
+
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity)
+                return false;
+            if (size.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    private void wakeUp() {
+        if (idle) {
+            Thread thread = this.thread;
+            if (thread != null)
+                LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        logger.info("Started");
+
+        List<MethodCall> calls = new ArrayList<>();
+        while (thread == Thread.currentThread()) {
+            try {
+                if (drainTo(calls) > 0) {
+                    publisher.accept(calls);
+                    calls = new ArrayList<>();
+                } else {
+                    // Set before checking the queue, an offer either sees it or is seen by the check
+                    idle = true;
+                    if (pending.isEmpty())
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    idle = false;
+                }
+            } catch (HazelcastInstanceNotActiveException e) {
+                // Callers publish themselves from now on
+                closed = true;
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Failed to publish calls", e);
+                calls = new ArrayList<>();
+            }
+        }
+
+        logger.info("Stopped");
+    }
+
+    private int drainTo(List<MethodCall> calls) {
+        int drained = 0;
+        MethodCall methodCall;
+        while (drained < MAX_DRAIN && (methodCall = pending.poll()) != null) {
+            calls.add(methodCall);
+            drained++;
+        }
+
+        if (drained > 0)
+            size.addAndGet(-drained);
+        return drained;
+    }
+}
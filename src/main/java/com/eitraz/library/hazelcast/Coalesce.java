@@ -0,0 +1,17 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a proxied method where only the latest call per object matters, such as a setter.
+ * A received call replaces a call to the same method on the same object that is still waiting to be invoked.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+}
@@ -0,0 +1,19 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets how calls to a proxied method are dispatched. Methods without the annotation are dispatched
+ * {@link DispatchPolicy#ASYNC} if void, {@link DispatchPolicy#BROADCAST} if the proxy returns values and
+ * {@link DispatchPolicy#ASYNC} otherwise. {@link ReadOnly} methods are always {@link DispatchPolicy#LOCAL}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Dispatch {
+    DispatchPolicy value();
+}
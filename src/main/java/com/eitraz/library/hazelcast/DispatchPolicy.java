@@ -0,0 +1,28 @@
+package com.eitraz.library.hazelcast;
+
+/**
+ * How a call to a proxied method is dispatched, see {@link Dispatch}
+ */
+public enum DispatchPolicy {
+    /**
+     * Invoke on the local object only and return the value, nothing is published
+     */
+    LOCAL,
+
+    /**
+     * Invoke on the local object on the calling thread and return the value, other members invoke the published call
+     */
+    BROADCAST,
+
+    /**
+     * Publish to other members only, the local object is not invoked and the default value of the return type is
+     * returned, null, zero or false
+     */
+    BROADCAST_EXCLUDING_SELF,
+
+    /**
+     * Publish to every member including the local, invoked by the invoker threads and the default value of the
+     * return type is returned, null, zero or false
+     */
+    ASYNC
+}
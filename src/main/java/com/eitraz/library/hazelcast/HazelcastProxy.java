@@ -1,35 +1,182 @@
 package com.eitraz.library.hazelcast;
 
+import com.eitraz.library.Duration;
 import com.eitraz.library.lifecycle.Startable;
 import com.eitraz.library.lifecycle.Stopable;
 import com.hazelcast.core.*;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import org.apache.log4j.Logger;
 
-import java.io.Serializable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
-public abstract class HazelcastProxy implements Startable, Stopable, MessageListener<HazelcastProxy.MethodCall> {
+/**
+ * Proxies objects so that method calls are published to a topic and invoked on every member in the cluster.
+ * <p>
+ * Objects are identified by a reference. Register objects with {@link #register(String, Object)}, or override
+ * {@link #createObjectReference(Object)} and {@link #createObjectFromReference(String)} to resolve them elsewhere.
+ * <p>
+ * Messages are {@link IdentifiedDataSerializable}, every member must register
+ * {@link HazelcastProxyDataSerializableFactory} in its config.
+ */
+public class HazelcastProxy implements Startable, Stopable {
     private static final Logger logger = Logger.getLogger(HazelcastProxy.class);
 
+    private static final Duration DEFAULT_BATCH_DELAY = new Duration(200, TimeUnit.MICROSECONDS);
+    private static final Duration DEFAULT_SCATTER_TIMEOUT = Duration.ONE_MINUTE;
+
+    /**
+     * Generated proxy class constructors, one per proxied interface
+     */
+    private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<Constructor<?>>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                return Proxy.getProxyClass(type.getClassLoader(), type).getConstructor(InvocationHandler.class);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * Started proxies by Hazelcast instance and topic in the order started, used to invoke {@link RemoteInvocation}
+     */
+    private static final ConcurrentMap<String, Set<HazelcastProxy>> STARTED = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the proxies in this JVM, tagging calls queued through the local fast path
+     */
+    private static final AtomicInteger PROXY_IDS = new AtomicInteger();
+
+    private final int proxyId = PROXY_IDS.incrementAndGet();
     private final HazelcastInstance hazelcast;
-    private final ITopic<MethodCall> topic;
+    private final String topicName;
+    private final TypeRegistry types;
+    private final ResultCache resultCache = new ResultCache();
+    private final ObjectReferenceRegistry registry = new ObjectReferenceRegistry(resultCache::invalidate);
+    private final ProxyMetrics metrics = new ProxyMetrics(this);
+    private boolean jmxEnabled;
+    private ObjectName jmxName;
+    private volatile int traceSampling;
     private boolean returnValue = true;
-    private String listenerId;
+    private final ConcurrentMap<Method, DispatchPolicy> dispatchPolicies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MethodTable, DispatchPolicy[]> dispatchTables = new ConcurrentHashMap<>();
+    private boolean localFastPath;
+    private volatile boolean localFastPathActive;
+    private boolean receiving;
+
+    private boolean reliable;
+    private boolean replayOnJoin;
+    private boolean routed;
+    private int topicShards = 1;
+    private boolean transportChanged;
+    private volatile MethodCallTransport transport;
+    private final Set<String> hosted = ConcurrentHashMap.newKeySet();
+
+    private int batchSize = 1;
+    private Duration batchDelay = DEFAULT_BATCH_DELAY;
+    private volatile MethodCallBatcher batcher;
+
+    private boolean asyncPublish;
+    private int publishQueueCapacity = Integer.MAX_VALUE;
+    private OverflowPolicy publishOverflowPolicy = OverflowPolicy.BLOCK;
+    private volatile AsyncPublisher asyncPublisher;
 
-    private BlockingQueue<MethodCall> methodCalls = new LinkedBlockingQueue<>();
-    private Thread invoker;
+    private int invokerThreads = 1;
+    private int queueCapacity = Integer.MAX_VALUE;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private OverflowHandler overflowHandler;
+    private final int[] priorityWeights = {16, 4, 1};
+    private final ConcurrentMap<String, PriorityClass> priorities = new ConcurrentHashMap<>();
+    private boolean invokersChanged;
+    private volatile Invoker[] invokers = createInvokers();
+    private final LongAdder overflowCalls = new LongAdder();
+    private volatile Duration scatterTimeout = DEFAULT_SCATTER_TIMEOUT;
 
     public HazelcastProxy(HazelcastInstance hazelcast, String topicName) {
         this.hazelcast = hazelcast;
-        topic = hazelcast.getTopic(topicName);
+        this.topicName = topicName;
+        types = new TypeRegistry(hazelcast.getMap(topicName + ".types"));
+        transport = createTransport();
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    /**
+     * @return counters and latency histograms of the proxy
+     */
+    public ProxyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return true if the metrics are registered as an MXBean while started
+     */
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    /**
+     * Register the metrics as a {@link HazelcastProxyMXBean} named
+     * {@code com.eitraz.library.hazelcast:type=HazelcastProxy,instance=<instance>,name=<topic>} while started.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param jmxEnabled true to register the metrics as an MXBean
+     */
+    public void setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * @return one in how many invoked calls is logged, 0 if none
+     */
+    public int getTraceSampling() {
+        return traceSampling;
+    }
+
+    /**
+     * Log a random sample of invoked calls with their arguments at info level
+     *
+     * @param traceSampling one in how many invoked calls to log, 1 to log every call, 0 to log none
+     */
+    public void setTraceSampling(int traceSampling) {
+        if (traceSampling < 0)
+            throw new IllegalArgumentException("Trace sampling can't be negative");
+
+        this.traceSampling = traceSampling;
     }
 
     /**
@@ -40,104 +187,902 @@ public abstract class HazelcastProxy implements Startable, Stopable, MessageList
     }
 
     /**
+     * Non void methods without a dispatch policy are dispatched {@link DispatchPolicy#BROADCAST} if true,
+     * {@link DispatchPolicy#ASYNC} if false. Applies to proxies created afterwards.
+     *
      * @param returnValue true if the proxy should run and return the value locally
      */
     public void setReturnValue(boolean returnValue) {
-        this.returnValue = returnValue;
+        synchronized (dispatchTables) {
+            this.returnValue = returnValue;
+            dispatchTables.clear();
+        }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * @return how calls to the method are dispatched by proxies created now, {@link DispatchPolicy#LOCAL} for
+     * methods not declared by a proxied interface such as {@link Object#toString()}
+     */
+    public DispatchPolicy getDispatchPolicy(Method method) {
+        DispatchPolicy policy = dispatchPolicies.get(method);
+        if (policy != null)
+            return policy;
+
+        if (!method.getDeclaringClass().isInterface())
+            return DispatchPolicy.LOCAL;
+
+        MethodTable methodTable = getMethodTable(method.getDeclaringClass());
+        int methodId = methodTable.getMethodId(method);
+        return methodId >= 0 ? getDispatchPolicies(methodTable)[methodId] : DispatchPolicy.LOCAL;
+    }
+
+    /**
+     * Overrides the {@link Dispatch} annotation of the method. Applies to proxies created afterwards.
+     * {@link ReadOnly} methods are always {@link DispatchPolicy#LOCAL}.
+     *
+     * @param method method of a proxied interface
+     * @param policy how calls to the method are dispatched, null to use the annotation or default
+     * @throws IllegalArgumentException if the method is read only and the policy is not local
+     */
+    public void setDispatchPolicy(Method method, DispatchPolicy policy) {
+        if (policy != null && policy != DispatchPolicy.LOCAL && method.isAnnotationPresent(ReadOnly.class))
+            throw new IllegalArgumentException(String.format("Read only method '%s' is always dispatched locally", method.getName()));
+
+        synchronized (dispatchTables) {
+            if (policy != null)
+                dispatchPolicies.put(method, policy);
+            else
+                dispatchPolicies.remove(method);
+            dispatchTables.clear();
+        }
+    }
+
+    /**
+     * @return max number of results of {@link ReadOnly} methods cached per object
+     */
+    public int getMaxCachedResults() {
+        return resultCache.getMaxResults();
+    }
+
+    /**
+     * When an object has the max number of results cached, its results are dropped before caching another.
+     *
+     * @param maxCachedResults max number of results of {@link ReadOnly} methods cached per object
+     */
+    public void setMaxCachedResults(int maxCachedResults) {
+        if (maxCachedResults < 1)
+            throw new IllegalArgumentException("Max cached results must be at least 1");
+
+        resultCache.setMaxResults(maxCachedResults);
+    }
+
+    /**
+     * @return true if calls executed locally skip the topic round trip
+     */
+    public boolean isLocalFastPath() {
+        return localFastPath;
+    }
+
+    /**
+     * Calls executed locally are queued for the local invoker directly instead of being received back from the
+     * topic, skipping serialization. Other members, and other proxies on this member, still receive the published
+     * call. Arguments are not copied, the local invocation sees the same argument objects as the caller.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param localFastPath true to queue calls executed locally directly
+     */
+    public void setLocalFastPath(boolean localFastPath) {
+        this.localFastPath = localFastPath;
+    }
+
+    /**
+     * @return true if calls are published through a reliable topic
+     */
+    public boolean isReliable() {
+        return reliable;
+    }
+
+    /**
+     * Publish through a reliable topic backed by a ringbuffer instead of a plain topic. The sequence of the last
+     * received call is tracked, calls published while stopped are received when started again.
+     * The ringbuffer capacity and read batch size are set in the reliable topic and ringbuffer config.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param reliable true to publish through a reliable topic
+     */
+    public void setReliable(boolean reliable) {
+        this.reliable = reliable;
+        transportChanged = true;
+    }
+
+    /**
+     * @return true if a reliable proxy replays the calls still in the ringbuffer when first started
+     */
+    public boolean isReplayOnJoin() {
+        return replayOnJoin;
+    }
+
+    /**
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param replayOnJoin true if a reliable proxy should replay the calls still in the ringbuffer when first started,
+     *                     false to only receive calls published after it was first started
+     */
+    public void setReplayOnJoin(boolean replayOnJoin) {
+        this.replayOnJoin = replayOnJoin;
+        transportChanged = true;
+    }
+
+    /**
+     * @return true if calls are only sent to the members hosting the object
+     */
+    public boolean isRouted() {
+        return routed;
+    }
+
+    /**
+     * Send calls only to the members hosting the object instead of broadcasting to every member. Members announce
+     * the objects they host when registered, see {@link #register(String, Object)} and {@link #host(String)}.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param routed true to only send calls to the members hosting the object
+     */
+    public void setRouted(boolean routed) {
+        this.routed = routed;
+        transportChanged = true;
+    }
+
+    /**
+     * @return number of topics calls are spread over
+     */
+    public int getTopicShards() {
+        return topicShards;
+    }
+
+    /**
+     * Spread calls over several topics by object reference, with one listener per topic. Calls to the same object
+     * keep their order. Every member must use the same number of shards.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param topicShards number of topics calls are spread over, 1 to use a single topic
+     */
+    public void setTopicShards(int topicShards) {
+        if (topicShards < 1)
+            throw new IllegalArgumentException("Topic shards must be at least 1");
+
+        this.topicShards = topicShards;
+        transportChanged = true;
+    }
+
+    /**
+     * @return number of threads invoking received calls
+     */
+    public int getInvokerThreads() {
+        return invokerThreads;
+    }
+
+    /**
+     * Calls are striped over the invoker threads by object reference, calls to the same object are invoked in order
+     * while calls to different objects may run in parallel. Takes effect on the next {@link #doStart()}.
+     *
+     * @param invokerThreads number of threads invoking received calls
+     */
+    public void setInvokerThreads(int invokerThreads) {
+        if (invokerThreads < 1)
+            throw new IllegalArgumentException("Invoker threads must be at least 1");
+
+        this.invokerThreads = invokerThreads;
+        invokersChanged = true;
+    }
+
+    /**
+     * @return max number of calls queued per invoker thread
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param queueCapacity max number of calls queued per invoker thread, {@link Integer#MAX_VALUE} for unbounded
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+
+        this.queueCapacity = queueCapacity;
+        invokersChanged = true;
+    }
+
+    /**
+     * @return what to do with a received call when the invoker queue is full
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param overflowPolicy what to do with a received call when the invoker queue is full
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        invokersChanged = true;
+    }
+
+    /**
+     * @return max number of calls invoked from the lane before giving the lower lanes a turn
+     */
+    public int getPriorityWeight(PriorityClass priority) {
+        return priorityWeights[priority.ordinal()];
+    }
+
+    /**
+     * Received calls are queued in one lane per priority and the lanes are drained by weight, by default 16 high,
+     * 4 normal and 1 low. A high priority call waits for at most the weights of the lower lanes.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param weight max number of calls invoked from the lane before giving the lower lanes a turn
+     */
+    public void setPriorityWeight(PriorityClass priority, int weight) {
+        if (weight < 1)
+            throw new IllegalArgumentException("Priority weight must be at least 1");
+
+        priorityWeights[priority.ordinal()] = weight;
+        invokersChanged = true;
+    }
+
+    /**
+     * @return priority of calls to the object without a {@link Priority} method
+     */
+    public PriorityClass getPriority(String reference) {
+        return priorities.getOrDefault(reference, PriorityClass.NORMAL);
+    }
+
+    /**
+     * @param priority priority of received calls to the object, unless the method has a {@link Priority},
+     *                 null for {@link PriorityClass#NORMAL}
+     */
+    public void setPriority(String reference, PriorityClass priority) {
+        if (priority != null)
+            priorities.put(reference, priority);
+        else
+            priorities.remove(reference);
+    }
+
+    /**
+     * @param overflowHandler receives calls that did not fit in the invoker or publish queue when using
+     *                        {@link OverflowPolicy#CALLBACK}
+     */
+    public void setOverflowHandler(OverflowHandler overflowHandler) {
+        this.overflowHandler = overflowHandler;
+    }
+
+    /**
+     * @return number of calls waiting to be invoked
+     */
+    public int getQueueSize() {
+        int size = 0;
+        for (Invoker invoker : invokers) {
+            size += invoker.getQueue().size();
+        }
+        return size;
+    }
+
+    /**
+     * @return largest number of calls queued for a single invoker thread since started or last reset,
+     * use to size {@link #setQueueCapacity(int)}
+     */
+    public int getQueueHighWaterMark() {
+        int highWaterMark = 0;
+        for (Invoker invoker : invokers) {
+            highWaterMark = Math.max(highWaterMark, invoker.getQueue().getHighWaterMark());
+        }
+        return highWaterMark;
+    }
+
+    public void resetQueueHighWaterMark() {
+        for (Invoker invoker : invokers) {
+            invoker.getQueue().resetHighWaterMark();
+        }
+    }
+
+    /**
+     * @return number of queued calls replaced by a newer call to a {@link Coalesce} method
+     */
+    public long getCoalescedCalls() {
+        long coalescedCalls = 0;
+        for (Invoker invoker : invokers) {
+            coalescedCalls += invoker.getQueue().getCoalescedCalls();
+        }
+        return coalescedCalls;
+    }
+
+    /**
+     * @return number of calls that were dropped or handed to the overflow handler because a queue was full
+     */
+    public long getOverflowCalls() {
+        return overflowCalls.sum();
+    }
+
+    /**
+     * @return max number of calls published in one message, 1 if batching is disabled
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Calls are collected and published as one message when the batch is full or the batch delay has passed.
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param batchSize max number of calls published in one message, 1 to disable batching
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1");
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return max time a call waits for its batch to fill up
+     */
+    public Duration getBatchDelay() {
+        return batchDelay;
+    }
+
+    /**
+     * @param batchDelay max time a call waits for its batch to fill up
+     */
+    public void setBatchDelay(Duration batchDelay) {
+        this.batchDelay = batchDelay;
+    }
+
+    /**
+     * @return true if calls are published from a background thread
+     */
+    public boolean isAsyncPublish() {
+        return asyncPublish;
+    }
+
+    /**
+     * Proxied calls are handed to a publisher thread through a lock-free queue instead of being serialized and
+     * published on the calling thread, the caller only pays for the enqueue. Calls from the same thread keep
+     * their order. Takes effect on the next {@link #doStart()}.
+     *
+     * @param asyncPublish true to publish calls from a background thread
+     */
+    public void setAsyncPublish(boolean asyncPublish) {
+        this.asyncPublish = asyncPublish;
+    }
+
+    /**
+     * @return max number of calls waiting to be published asynchronously
+     */
+    public int getPublishQueueCapacity() {
+        return publishQueueCapacity;
+    }
+
+    /**
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param publishQueueCapacity max number of calls waiting to be published asynchronously,
+     *                             {@link Integer#MAX_VALUE} for unbounded
+     */
+    public void setPublishQueueCapacity(int publishQueueCapacity) {
+        if (publishQueueCapacity < 1)
+            throw new IllegalArgumentException("Publish queue capacity must be at least 1");
+
+        this.publishQueueCapacity = publishQueueCapacity;
+    }
+
+    /**
+     * @return what to do with a proxied call when the publish queue is full
+     */
+    public OverflowPolicy getPublishOverflowPolicy() {
+        return publishOverflowPolicy;
+    }
+
+    /**
+     * Takes effect on the next {@link #doStart()}.
+     *
+     * @param publishOverflowPolicy what to do with a proxied call when the publish queue is full,
+     *                              {@link OverflowPolicy#BLOCK} blocks the calling thread
+     */
+    public void setPublishOverflowPolicy(OverflowPolicy publishOverflowPolicy) {
+        this.publishOverflowPolicy = publishOverflowPolicy;
+    }
+
+    /**
+     * @return number of calls waiting to be published asynchronously
+     */
+    public int getPublishQueueSize() {
+        AsyncPublisher asyncPublisher = this.asyncPublisher;
+        return asyncPublisher != null ? asyncPublisher.size() : 0;
+    }
+
+    /**
+     * @param reference reference to the object, the same on every member
+     * @param object    object to register
+     * @return the object
+     */
+    public <O> O register(String reference, O object) {
+        registry.register(reference, object);
+        resultCache.invalidate(reference);
+        transport.host(reference);
+        return object;
+    }
+
+    /**
+     * @param reference reference of the object to unregister
+     */
+    public void unregister(String reference) {
+        registry.unregister(reference);
+        resultCache.invalidate(reference);
+        transport.unhost(reference);
+    }
+
+    /**
+     * Announce that an object is hosted by this member when routing calls, only needed for objects not registered
+     * with {@link #register(String, Object)}. Announced again when the transport is changed, until unhosted.
+     *
+     * @param reference reference of the hosted object
+     */
+    public void host(String reference) {
+        hosted.add(reference);
+        transport.host(reference);
+    }
+
+    /**
+     * @param reference reference of an object no longer hosted by this member
+     */
+    public void unhost(String reference) {
+        hosted.remove(reference);
+        transport.unhost(reference);
+    }
+
+    /**
+     * @return registry used to resolve object references unless overridden
+     */
+    public ObjectReferenceRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * The object reference is resolved once, the object must be registered before it is proxied.
+     * If the object has no reference the proxy only calls the object locally.
+     */
     public <O> O proxy(final O object, Class<O> type) {
-        return (O) Proxy.newProxyInstance(object.getClass().getClassLoader(), new Class<?>[]{type},
-                (proxy, method, args) -> {
-                    String objectReference = createObjectReference(object);
-
-                    // Send to topic
-                    if (objectReference != null) {
-                        Object ret;
-                        boolean executeLocally;
-
-                        // Void
-                        if (isReturnTypeVoid(method)) {
-                            ret = Void.TYPE;
-                            executeLocally = true;
-                        }
-                        // Invoke method local and return value
-                        else if (isReturnValue()) {
-                            ret = method.invoke(object, args);
-                            executeLocally = false;
-                        }
-                        // Return null - only invoke async
-                        else {
-                            ret = null;
-                            executeLocally = true;
-                        }
+        MethodTable methodTable = getMethodTable(type);
+        return newProxyInstance(type, new ProxyHandler(object, createObjectReference(object), methodTable, getDispatchPolicies(methodTable)));
+    }
+
+    /**
+     * @return dispatch policy by method id
+     */
+    private DispatchPolicy[] getDispatchPolicies(MethodTable methodTable) {
+        DispatchPolicy[] cached = dispatchTables.get(methodTable);
+        if (cached != null)
+            return cached;
+
+        // Built while the settings cannot change, a table is never cached with settings already replaced
+        synchronized (dispatchTables) {
+            return dispatchTables.computeIfAbsent(methodTable, this::createDispatchPolicies);
+        }
+    }
+
+    private DispatchPolicy[] createDispatchPolicies(MethodTable table) {
+        DispatchPolicy[] policies = new DispatchPolicy[table.size()];
+        for (int methodId = 0; methodId < policies.length; methodId++) {
+            DispatchPolicy policy = dispatchPolicies.get(table.getMethod(methodId));
+
+            if (table.isReadOnly(methodId))
+                policy = DispatchPolicy.LOCAL;
+            else if (policy == null)
+                policy = table.getDispatch(methodId);
+
+            if (policy == null)
+                policy = !table.isVoid(methodId) && returnValue ? DispatchPolicy.BROADCAST : DispatchPolicy.ASYNC;
+
+            policies[methodId] = policy;
+        }
+        return policies;
+    }
+
+    /**
+     * @return max time a member waits for a scattered call to be invoked
+     */
+    public Duration getScatterTimeout() {
+        return scatterTimeout;
+    }
+
+    /**
+     * A member that does not invoke a scattered call within the timeout, for example because its invoker queue is
+     * backed up, is left out of the values.
+     *
+     * @param scatterTimeout max time a member waits for a scattered call to be invoked
+     */
+    public void setScatterTimeout(Duration scatterTimeout) {
+        this.scatterTimeout = scatterTimeout;
+    }
+
+    /**
+     * Invoke a non void method in parallel on every member hosting the object and collect the returned values.
+     * The call is recorded by running it against a recording proxy, for example
+     * {@code scatter(object, Calculator.class, calculator -> calculator.compute(input))}.
+     * <p>
+     * Members are the hosting members when routed, otherwise every member with a started proxy on the same topic
+     * and the object registered. On each member the call is sent through the Hazelcast executor service named after
+     * the topic and queued once, by the first started proxy on the topic resolving the object, for the invoker
+     * thread of the object, so it runs in order with received calls and never at the same time as them. The executor
+     * thread waits until the call has been invoked, for at most the {@link #setScatterTimeout(Duration) scatter
+     * timeout}. Calls still queued when the proxy is stopped or dropped because the invoker queue is full fail with
+     * {@link RejectedExecutionException}.
+     *
+     * @param object registered object to invoke the method on
+     * @param type   proxied interface
+     * @param call   call to record, its return value is ignored
+     * @return values by member, completed exceptionally if the method failed on any member
+     */
+    public <O, R> CompletableFuture<Map<Member, R>> scatter(O object, Class<O> type, Function<O, R> call) {
+        String objectReference = createObjectReference(object);
+        if (objectReference == null)
+            throw new IllegalArgumentException("Object has no reference");
+
+        MethodTable methodTable = getMethodTable(type);
+        RecordingHandler recorder = new RecordingHandler();
+        call.apply(newProxyInstance(type, recorder));
+
+        int methodId = recorder.method != null ? methodTable.getMethodId(recorder.method) : -1;
+        if (methodId < 0)
+            throw new IllegalArgumentException(String.format("No method of '%s' was called", type.getCanonicalName()));
 
-                        // Publish
-                        topic.publish(new MethodCall(objectReference, method, args, executeLocally));
+        MethodCall methodCall = new MethodCall(objectReference, methodTable.getTypeId(), methodId, recorder.args, true);
+        Collection<Member> members = transport.getMembers(objectReference);
 
-                        return ret;
+        CompletableFuture<Map<Member, R>> future = new CompletableFuture<>();
+        if (members.isEmpty()) {
+            future.complete(Collections.emptyMap());
+            return future;
+        }
+
+        hazelcast.getExecutorService(topicName + ".executor").submitToMembers(
+                new RemoteInvocation(topicName, methodCall), members, new MultiExecutionCallback() {
+                    @Override
+                    public void onResponse(Member member, Object value) {
                     }
-                    // Call once and return result
-                    else {
-                        return method.invoke(object, args);
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void onComplete(Map<Member, Object> values) {
+                        Map<Member, R> results = new LinkedHashMap<>();
+                        for (Map.Entry<Member, Object> entry : values.entrySet()) {
+                            Object value = entry.getValue();
+
+                            if (value instanceof Throwable) {
+                                future.completeExceptionally((Throwable) value);
+                                return;
+                            }
+
+                            RemoteInvocation.Result result = (RemoteInvocation.Result) value;
+                            if (result.isHosted())
+                                results.put(entry.getKey(), (R) result.getValue());
+                        }
+                        future.complete(results);
                     }
                 });
+
+        return future;
+    }
+
+    /**
+     * @param reducer reduces the values by member, see {@link Reducers}
+     * @return reduced value, completed exceptionally if the method failed on any member
+     * @see #scatter(Object, Class, Function)
+     */
+    public <O, R, T> CompletableFuture<T> scatter(O object, Class<O> type, Function<O, R> call, Function<Map<Member, R>, T> reducer) {
+        return this.<O, R>scatter(object, type, call).thenApply(reducer);
+    }
+
+    /**
+     * Invoke on the invoker thread of the object, in order with received calls, and wait for the returned value
+     *
+     * @return value returned by the method, not hosted if the object is not registered on this member or the call
+     * was not invoked within the scatter timeout
+     */
+    RemoteInvocation.Result invokeForResult(MethodCall methodCall) throws Throwable {
+        if (createObjectFromReference(methodCall.getObjectReference()) == null)
+            return new RemoteInvocation.Result(false, null);
+
+        CompletableFuture<RemoteInvocation.Result> result = new CompletableFuture<>();
+        methodCall.setResult(result);
+        enqueue(methodCall);
+
+        try {
+            return result.get(scatterTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            // Nobody waits for the value any longer, the call is still invoked when its turn comes
+            result.cancel(false);
+
+            logger.warn(String.format("Call to object '%s' not invoked within %d ms, left out of the scattered values",
+                    methodCall.getObjectReference(), scatterTimeout.toMillis()));
+            return new RemoteInvocation.Result(false, null);
+        }
+    }
+
+    /**
+     * @return first started proxy on the topic resolving the object, null if none
+     */
+    static HazelcastProxy getStarted(HazelcastInstance hazelcast, String topicName, String objectReference) {
+        Set<HazelcastProxy> proxies = STARTED.get(startedKey(hazelcast, topicName));
+        if (proxies != null) {
+            for (HazelcastProxy proxy : proxies) {
+                if (proxy.createObjectFromReference(objectReference) != null)
+                    return proxy;
+            }
+        }
+        return null;
+    }
+
+    private static String startedKey(HazelcastInstance hazelcast, String topicName) {
+        return hazelcast.getName() + "/" + topicName;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <O> O newProxyInstance(Class<O> type, InvocationHandler handler) {
+        try {
+            return (O) PROXY_CONSTRUCTORS.get(type).newInstance(handler);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalArgumentException(String.format("Unable to proxy '%s'", type.getCanonicalName()), e);
+        }
+    }
+
+    private void publish(MethodCall methodCall) {
+        metrics.published();
+
+        AsyncPublisher asyncPublisher = this.asyncPublisher;
+
+        if (asyncPublisher != null) {
+            MethodCall overflow = asyncPublisher.offer(methodCall);
+            if (overflow != null)
+                overflow(overflow, publishOverflowPolicy);
+        } else {
+            publishNow(methodCall);
+        }
+    }
+
+    private void publishNow(MethodCall methodCall) {
+        MethodCallBatcher batcher = this.batcher;
+
+        if (batcher != null)
+            batcher.add(methodCall);
+        else
+            transport.publish(methodCall);
+    }
+
+    private void publishNow(List<MethodCall> methodCalls) {
+        MethodCallBatcher batcher = this.batcher;
+
+        if (batcher != null)
+            methodCalls.forEach(batcher::add);
+        else
+            transport.publish(methodCalls);
+    }
+
+    private MethodCallTransport createTransport() {
+        if (!routed)
+            return new TopicTransport(hazelcast, topicName, topicShards, reliable, replayOnJoin);
+
+        MethodCallTransport transport = new RoutedTransport(hazelcast, topicName, topicShards, reliable, replayOnJoin);
+        registry.getReferences().forEach(transport::host);
+        hosted.forEach(transport::host);
+        return transport;
+    }
+
+    private MethodTable getMethodTable(Class<?> type) {
+        try {
+            return types.getTable(type);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Unable to proxy '%s'", type.getCanonicalName()), e);
+        }
     }
 
     @Override
     public synchronized void doStart() {
-        if (listenerId == null) {
-            listenerId = topic.addMessageListener(this);
+        // Reconfigure while not receiving
+        if (!receiving && transportChanged) {
+            transport = createTransport();
+            transportChanged = false;
         }
 
-        if (invoker == null) {
-            invoker = new Thread("HazelcastProxy invoker") {
-                @Override
-                public void run() {
-                    logger.info("Started");
+        if (batcher == null && batchSize > 1) {
+            batcher = new MethodCallBatcher(batchSize, batchDelay, methodCalls -> transport.publish(methodCalls));
+            batcher.start();
+        }
 
-                    while (invoker == this) {
-                        try {
-                            MethodCall methodCall = methodCalls.poll(1, TimeUnit.SECONDS);
+        if (asyncPublisher == null && asyncPublish) {
+            asyncPublisher = new AsyncPublisher(publishQueueCapacity, publishOverflowPolicy, this::publishNow);
+            asyncPublisher.start();
+        }
 
-                            // Execute
-                            if (methodCall != null)
-                                invoke(methodCall);
+        if (!receiving && invokersChanged) {
+            Invoker[] previous = invokers;
+            invokers = createInvokers();
+            invokersChanged = false;
 
-                        } catch (InterruptedException e) {
-                            logger.error(e);
-                        } catch (HazelcastInstanceNotActiveException ignored) {
-                            break;
-                        }
-                    }
+            for (Invoker invoker : invokers) {
+                invoker.start();
+            }
 
-                    logger.info("Stopped");
-                }
-            };
+            // Keep calls not yet invoked
+            List<MethodCall> pending = new ArrayList<>();
+            for (Invoker invoker : previous) {
+                invoker.drainTo(pending);
+            }
+            pending.forEach(this::enqueue);
+        }
+
+        for (Invoker invoker : invokers) {
             invoker.start();
         }
+
+        if (!receiving) {
+            localFastPathActive = localFastPath;
+            transport.start(this::receive);
+            receiving = true;
+            STARTED.compute(startedKey(hazelcast, topicName), (key, proxies) -> {
+                if (proxies == null)
+                    proxies = new CopyOnWriteArraySet<>();
+                proxies.add(this);
+                return proxies;
+            });
+        }
+
+        if (jmxEnabled && jmxName == null)
+            registerMXBean();
+    }
+
+    private void registerMXBean() {
+        try {
+            ObjectName name = new ObjectName(String.format("com.eitraz.library.hazelcast:type=HazelcastProxy,instance=%s,name=%s",
+                    ObjectName.quote(hazelcast.getName()), ObjectName.quote(topicName)));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            jmxName = name;
+        } catch (JMException e) {
+            logger.warn(String.format("Failed to register MXBean for topic '%s'", topicName), e);
+        }
+    }
+
+    private void unregisterMXBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(jmxName);
+        } catch (JMException e) {
+            logger.warn(String.format("Failed to unregister MXBean for topic '%s'", topicName), e);
+        } finally {
+            jmxName = null;
+        }
     }
 
     @Override
     public synchronized void doStop() {
-        invoker = null;
+        // Flush into the batcher before stopping it
+        if (asyncPublisher != null) {
+            AsyncPublisher stopped = asyncPublisher;
+            asyncPublisher = null;
+            stopped.stop();
+        }
 
-        if (listenerId != null) {
-            topic.removeMessageListener(listenerId);
-            listenerId = null;
+        if (batcher != null) {
+            MethodCallBatcher stopped = batcher;
+            batcher = null;
+            stopped.stop();
         }
+
+        if (receiving) {
+            STARTED.computeIfPresent(startedKey(hazelcast, topicName), (key, proxies) -> {
+                proxies.remove(this);
+                return proxies.isEmpty() ? null : proxies;
+            });
+            transport.stop();
+            receiving = false;
+            localFastPathActive = false;
+        }
+
+        // Calls waiting for their result would not be invoked until started again
+        List<MethodCall> waiting = new ArrayList<>();
+        for (Invoker invoker : invokers) {
+            invoker.stop();
+            invoker.drainTo(waiting, methodCall -> methodCall.getResult() != null);
+        }
+        for (MethodCall methodCall : waiting) {
+            methodCall.getResult().completeExceptionally(new RejectedExecutionException(
+                    String.format("Stopped, dropped call to object '%s'", methodCall.getObjectReference())));
+        }
+
+        if (jmxName != null)
+            unregisterMXBean();
     }
 
-    @Override
-    public void onMessage(Message<MethodCall> message) {
-        MethodCall methodCall = message.getMessageObject();
+    private void receive(Object message, boolean local) {
+        if (message instanceof MethodCallBatch) {
+            for (MethodCall methodCall : ((MethodCallBatch) message).getMethodCalls()) {
+                receive(methodCall, local);
+            }
+        } else {
+            receive((MethodCall) message, local);
+        }
+    }
+
+    private void receive(MethodCall methodCall, boolean local) {
+        // Don't invoke locally, or already queued locally by this proxy
+        if (local && (!methodCall.isExecuteLocally() || methodCall.getLocalProxyId() == proxyId))
+            return;
+
+        enqueue(methodCall);
+    }
+
+    private void enqueue(MethodCall methodCall) {
+        Invoker[] invokers = this.invokers;
+        Invoker invoker = invokers[stripe(methodCall.getObjectReference(), invokers.length)];
+
+        boolean coalesce = false;
+        PriorityClass priority = null;
+        try {
+            MethodTable methodTable = types.getTable(methodCall.getTypeId());
+            // Calls waiting for their result are never superseded
+            coalesce = methodTable.isCoalesce(methodCall.getMethodId()) && methodCall.getResult() == null;
+            priority = methodTable.getPriority(methodCall.getMethodId());
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            // Reported when invoked
+        }
+
+        if (priority == null)
+            priority = getPriority(methodCall.getObjectReference());
+
+        metrics.received(methodCall);
+        MethodCall overflow = invoker.offer(methodCall, coalesce, priority);
+
+        if (overflow != null)
+            overflow(overflow, overflowPolicy);
+    }
+
+    private void overflow(MethodCall methodCall, OverflowPolicy policy) {
+        overflowCalls.increment();
 
-        // Don't invoke locally
-        if (!methodCall.isExecuteLocally() && message.getPublishingMember().equals(hazelcast.getCluster().getLocalMember()))
+        CompletableFuture<RemoteInvocation.Result> result = methodCall.getResult();
+        if (result != null) {
+            result.completeExceptionally(new RejectedExecutionException(
+                    String.format("Queue full, dropped call to object '%s'", methodCall.getObjectReference())));
             return;
+        }
 
-        methodCalls.offer(methodCall);
+        OverflowHandler overflowHandler = this.overflowHandler;
+        if (policy == OverflowPolicy.CALLBACK && overflowHandler != null) {
+            overflowHandler.onOverflow(methodCall);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug(String.format("Queue full, dropped call to object '%s'", methodCall.getObjectReference()));
+        }
+    }
+
+    /**
+     * @return index of the invoker handling calls for the object reference
+     */
+    static int stripe(String objectReference, int stripes) {
+        int hash = objectReference.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes;
+    }
+
+    private Invoker[] createInvokers() {
+        Invoker[] invokers = new Invoker[invokerThreads];
+        for (int i = 0; i < invokers.length; i++) {
+            invokers[i] = new Invoker("HazelcastProxy invoker-" + i, this::invoke, new MethodCallQueue(queueCapacity, overflowPolicy, priorityWeights));
+        }
+        return invokers;
     }
 
     /**
@@ -145,44 +1090,86 @@ public abstract class HazelcastProxy implements Startable, Stopable, MessageList
      */
     private void invoke(MethodCall methodCall) {
         String objectReference = methodCall.getObjectReference();
+        CompletableFuture<RemoteInvocation.Result> result = methodCall.getResult();
 
         Object object = createObjectFromReference(objectReference);
         if (object == null) {
+            if (result != null) {
+                result.complete(new RemoteInvocation.Result(false, null));
+                return;
+            }
+
+            metrics.failed();
             logger.error(String.format("Failed to create object for reference '%s'", objectReference));
             return;
         }
 
-        String methodName = methodCall.getMethod();
+        MethodTable methodTable;
+        try {
+            methodTable = types.getTable(methodCall.getTypeId());
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            metrics.failed();
+            if (result != null)
+                result.completeExceptionally(e);
+            else
+                logger.error(String.format("Failed to resolve type %d for object '%s'", methodCall.getTypeId(), objectReference), e);
+            return;
+        }
+
+        int methodId = methodCall.getMethodId();
         Object[] args = methodCall.getArgs();
 
-        List<Class<?>> parameterTypes = new ArrayList<>();
-        if (args != null) {
-            for (Object arg : args) {
-                parameterTypes.add(arg.getClass());
-            }
+        // Sampled tracing
+        int traceSampling = this.traceSampling;
+        if (traceSampling > 0 && ThreadLocalRandom.current().nextInt(traceSampling) == 0 && logger.isInfoEnabled()) {
+            logger.info(String.format("Executing method '%s' on object '%s' with arguments %s",
+                    methodTable.getMethod(methodId).getName(), objectReference, Arrays.toString(args)));
         }
 
-        logger.info(String.format("Executing method '%s' on object '%s' with arguments %s", methodName, objectReference, Arrays.toString(args)));
-
+        long startTime = metrics.invoking(methodCall);
+        boolean failed = false;
         try {
-            Method method = object.getClass().getMethod(
-                    methodName, parameterTypes.toArray(new Class<?>[parameterTypes.size()]));
+            Object value = methodTable.invoke(methodId, object, args);
+
+            if (result != null)
+                result.complete(new RemoteInvocation.Result(true, value));
+        } catch (Throwable e) {
+            failed = true;
+
+            // Sent back to the caller
+            if (result != null) {
+                result.completeExceptionally(e);
+                return;
+            }
 
-            method.invoke(object, args);
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
             logger.error(
                     String.format("Failed to invoke method '%s' with arguments '%s' on object '%s' (%s)",
-                            methodName,
+                            methodTable.getMethod(methodId).getName(),
                             Arrays.deepToString(args),
                             objectReference,
                             object.getClass().getCanonicalName()),
                     e);
+        } finally {
+            metrics.invoked(methodTable, methodId, startTime, failed);
+
+            // Results cached before the call was invoked are stale
+            resultCache.invalidate(objectReference);
         }
     }
 
-    protected abstract String createObjectReference(Object object);
+    /**
+     * @return reference to the object, null if the object should not be proxied
+     */
+    protected String createObjectReference(Object object) {
+        return registry.getReference(object);
+    }
 
-    protected abstract <O> O createObjectFromReference(String reference);
+    /**
+     * @return object for the reference, null if there is no such object on this member
+     */
+    protected <O> O createObjectFromReference(String reference) {
+        return registry.getObject(reference);
+    }
 
     /**
      * @return true if return type of the method is 'void'
@@ -191,25 +1178,159 @@ public abstract class HazelcastProxy implements Startable, Stopable, MessageList
         return method.getReturnType().equals(Void.TYPE);
     }
 
-    public static class MethodCall implements Serializable {
+    /**
+     * Handler shared by all methods of a proxy, with the object reference and method table resolved up front
+     */
+    private class ProxyHandler implements InvocationHandler {
+        private final Object object;
         private final String objectReference;
-        private final String method;
-        private final Object[] args;
-        private final boolean executeLocally;
+        private final MethodTable methodTable;
+        private final DispatchPolicy[] policies;
 
-        public MethodCall(String objectReference, Method method, Object[] args, boolean executeLocally) {
+        private ProxyHandler(Object object, String objectReference, MethodTable methodTable, DispatchPolicy[] policies) {
+            this.object = object;
             this.objectReference = objectReference;
-            this.method = method.getName();
+            this.methodTable = methodTable;
+            this.policies = policies;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            int methodId = methodTable.getMethodId(method);
+
+            // Call once and return result
+            if (objectReference == null || methodId < 0) {
+                try {
+                    return method.invoke(object, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            Object ret;
+            boolean executeLocally;
+
+            switch (policies[methodId]) {
+                // Never published
+                case LOCAL:
+                    if (methodTable.isReadOnly(methodId))
+                        return invokeReadOnly(methodId, args);
+
+                    try {
+                        return methodTable.invoke(methodId, object, args);
+                    } finally {
+                        resultCache.invalidate(objectReference);
+                    }
+
+                // Invoke method local and return value
+                case BROADCAST:
+                    ret = methodTable.invoke(methodId, object, args);
+                    executeLocally = false;
+                    break;
+
+                case BROADCAST_EXCLUDING_SELF:
+                    ret = defaultValue(method);
+                    executeLocally = false;
+                    break;
+
+                // Return the default value - only invoke async
+                default:
+                    ret = defaultValue(method);
+                    executeLocally = true;
+                    break;
+            }
+
+            MethodCall methodCall = new MethodCall(objectReference, methodTable.getTypeId(), methodId, args, executeLocally);
+            resultCache.invalidate(objectReference);
+
+            // Skip the round trip, the echo received back is recognized by the proxy id
+            if (executeLocally && localFastPathActive) {
+                methodCall.setLocalProxyId(proxyId);
+                enqueue(methodCall);
+            }
+
+            // Publish
+            publish(methodCall);
+
+            return ret;
+        }
+
+        private Object invokeReadOnly(int methodId, Object[] args) throws Throwable {
+            ConcurrentMap<ResultCache.Key, Object> results = resultCache.getResults(objectReference);
+            ResultCache.Key key = ResultCache.key(methodId, args);
+
+            Object value = results.get(key);
+            if (value == null) {
+                value = ResultCache.wrap(methodTable.invoke(methodId, object, args));
+                resultCache.put(results, key, value);
+            }
+            return ResultCache.unwrap(value);
+        }
+    }
+
+    /**
+     * @return zero for primitive return types, otherwise null
+     */
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        return returnType.isPrimitive() && returnType != Void.TYPE ? Array.get(Array.newInstance(returnType, 1), 0) : null;
+    }
+
+    /**
+     * Records the last method called, returning default values
+     */
+    private static class RecordingHandler implements InvocationHandler {
+        private Method method;
+        private Object[] args;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+
+            return defaultValue(method);
+        }
+    }
+
+    public static class MethodCall implements IdentifiedDataSerializable {
+        private String objectReference;
+        private int typeId;
+        private int methodId;
+        private Object[] args;
+        private boolean executeLocally;
+        private int localProxyId;
+        private long publishTime;
+        private transient long enqueueTime;
+        private transient CompletableFuture<RemoteInvocation.Result> result;
+
+        MethodCall() {
+        }
+
+        public MethodCall(String objectReference, int typeId, int methodId, Object[] args, boolean executeLocally) {
+            this.objectReference = objectReference;
+            this.typeId = typeId;
+            this.methodId = methodId;
             this.args = args;
             this.executeLocally = executeLocally;
+            this.publishTime = System.currentTimeMillis();
         }
 
         public String getObjectReference() {
             return objectReference;
         }
 
-        public String getMethod() {
-            return method;
+        /**
+         * @return id of the proxied interface, negotiated within the cluster
+         */
+        public int getTypeId() {
+            return typeId;
+        }
+
+        /**
+         * @return id of the method within the proxied interface
+         */
+        public int getMethodId() {
+            return methodId;
         }
 
         public Object[] getArgs() {
@@ -219,5 +1340,125 @@ public abstract class HazelcastProxy implements Startable, Stopable, MessageList
         public boolean isExecuteLocally() {
             return executeLocally;
         }
+
+        /**
+         * @return id of the proxy on the publishing member that already queued the call, 0 if not queued
+         */
+        int getLocalProxyId() {
+            return localProxyId;
+        }
+
+        void setLocalProxyId(int localProxyId) {
+            this.localProxyId = localProxyId;
+        }
+
+        /**
+         * @return wall clock time in milliseconds when the call was made
+         */
+        public long getPublishTime() {
+            return publishTime;
+        }
+
+        /**
+         * @return {@link System#nanoTime()} when the call was queued for invoking on this member, 0 if not queued
+         */
+        long getEnqueueTime() {
+            return enqueueTime;
+        }
+
+        void setEnqueueTime(long enqueueTime) {
+            this.enqueueTime = enqueueTime;
+        }
+
+        /**
+         * @return completed with the value returned when invoked, null if nobody waits for the result
+         */
+        CompletableFuture<RemoteInvocation.Result> getResult() {
+            return result;
+        }
+
+        void setResult(CompletableFuture<RemoteInvocation.Result> result) {
+            this.result = result;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return HazelcastProxyDataSerializableFactory.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return HazelcastProxyDataSerializableFactory.METHOD_CALL;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeUTF(objectReference);
+            WireFormat.writeVarInt(out, typeId);
+            WireFormat.writeVarInt(out, methodId);
+            out.writeBoolean(executeLocally);
+            WireFormat.writeVarInt(out, localProxyId);
+            out.writeLong(publishTime);
+            WireFormat.writeArgs(out, args);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            objectReference = in.readUTF();
+            typeId = WireFormat.readVarInt(in);
+            methodId = WireFormat.readVarInt(in);
+            executeLocally = in.readBoolean();
+            localProxyId = WireFormat.readVarInt(in);
+            publishTime = in.readLong();
+            args = WireFormat.readArgs(in);
+        }
+    }
+
+    public static class MethodCallBatch implements IdentifiedDataSerializable {
+        private List<MethodCall> methodCalls;
+
+        MethodCallBatch() {
+        }
+
+        public MethodCallBatch(List<MethodCall> methodCalls) {
+            this.methodCalls = methodCalls;
+        }
+
+        /**
+         * @return calls in the order they were published
+         */
+        public List<MethodCall> getMethodCalls() {
+            return Collections.unmodifiableList(methodCalls);
+        }
+
+        @Override
+        public int getFactoryId() {
+            return HazelcastProxyDataSerializableFactory.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return HazelcastProxyDataSerializableFactory.METHOD_CALL_BATCH;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            WireFormat.writeVarInt(out, methodCalls.size());
+            for (MethodCall methodCall : methodCalls) {
+                methodCall.writeData(out);
+            }
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            int size = WireFormat.readVarInt(in);
+
+            methodCalls = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                MethodCall methodCall = new MethodCall();
+                methodCall.readData(in);
+                methodCalls.add(methodCall);
+            }
+        }
     }
 }
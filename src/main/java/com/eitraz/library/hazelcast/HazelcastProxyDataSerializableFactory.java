@@ -0,0 +1,43 @@
+package com.eitraz.library.hazelcast;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+/**
+ * Creates the {@link IdentifiedDataSerializable} messages sent by {@link HazelcastProxy}.
+ * Must be registered on every member, see {@link #configure(Config)}.
+ */
+public class HazelcastProxyDataSerializableFactory implements DataSerializableFactory {
+    public static final int FACTORY_ID = 0x45495452;
+
+    public static final int METHOD_CALL = 1;
+    public static final int METHOD_CALL_BATCH = 2;
+    public static final int REMOTE_INVOCATION = 3;
+    public static final int REMOTE_RESULT = 4;
+
+    /**
+     * @param config config to register the factory in
+     * @return the config
+     */
+    public static Config configure(Config config) {
+        config.getSerializationConfig().addDataSerializableFactory(FACTORY_ID, new HazelcastProxyDataSerializableFactory());
+        return config;
+    }
+
+    @Override
+    public IdentifiedDataSerializable create(int typeId) {
+        switch (typeId) {
+            case METHOD_CALL:
+                return new HazelcastProxy.MethodCall();
+            case METHOD_CALL_BATCH:
+                return new HazelcastProxy.MethodCallBatch();
+            case REMOTE_INVOCATION:
+                return new RemoteInvocation();
+            case REMOTE_RESULT:
+                return new RemoteInvocation.Result();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.eitraz.library.hazelcast;
+
+import java.util.Map;
+
+/**
+ * Metrics of a {@link HazelcastProxy}, registered when {@link HazelcastProxy#setJmxEnabled(boolean)} is set.
+ * Latencies are in nanoseconds.
+ */
+public interface HazelcastProxyMXBean {
+    String getTopicName();
+
+    /**
+     * @return number of calls published by this member
+     */
+    long getPublishedCalls();
+
+    /**
+     * @return number of calls queued for the invoker threads
+     */
+    long getReceivedCalls();
+
+    /**
+     * @return number of calls invoked, including failed calls
+     */
+    long getInvokedCalls();
+
+    /**
+     * @return number of calls that threw or could not be resolved to an object or type
+     */
+    long getFailedCalls();
+
+    long getOverflowCalls();
+
+    long getCoalescedCalls();
+
+    int getQueueSize();
+
+    int getQueueHighWaterMark();
+
+    int getPublishQueueSize();
+
+    /**
+     * @return time from publish to queued for invoking, measured with the wall clock of the members
+     */
+    LatencySnapshot getTransitLatency();
+
+    /**
+     * @return time from queued to invoked
+     */
+    LatencySnapshot getQueueLatency();
+
+    /**
+     * @return time spent in the invoked method
+     */
+    LatencySnapshot getInvokeLatency();
+
+    /**
+     * @return invoked calls by method, as 'Type.method'
+     */
+    Map<String, Long> getInvocationsByMethod();
+
+    /**
+     * @return failed calls by method, as 'Type.method'
+     */
+    Map<String, Long> getErrorsByMethod();
+
+    void reset();
+}
@@ -0,0 +1,101 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.Duration;
+import com.eitraz.library.ExpiryMode;
+import com.eitraz.library.TimeoutHandler;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TimeoutHandler} shared by all members of the cluster.
+ * <p>
+ * Each check is a single {@link IMap#put(Object, Object, long, TimeUnit)} of the new deadline, returning the previous
+ * deadline in the same round trip. Entries live for the timeout, timed out values are evicted by Hazelcast.
+ * <p>
+ * With the near cache enabled, values checked by this member within the timeout are known not to be ready without
+ * asking the cluster, their deadline is renewed in the cluster without waiting for the reply.
+ */
+public class HazelcastTimeoutHandler<T> {
+    private static final Logger logger = Logger.getLogger(HazelcastTimeoutHandler.class);
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ONE_SECOND;
+
+    private final IMap<T, Long> cache;
+    private final TimeoutHandler<T> nearCache;
+
+    private volatile Duration timeout;
+
+    public HazelcastTimeoutHandler(HazelcastInstance hazelcast, String name) {
+        this(hazelcast, name, DEFAULT_TIMEOUT);
+    }
+
+    public HazelcastTimeoutHandler(HazelcastInstance hazelcast, String name, Duration timeout) {
+        this(hazelcast.getMap(name), timeout, false);
+    }
+
+    /**
+     * @param nearCache true to remember values checked by this member until they time out
+     */
+    public HazelcastTimeoutHandler(IMap<T, Long> cache, Duration timeout, boolean nearCache) {
+        this.cache = cache;
+        this.nearCache = nearCache ? new TimeoutHandler<>(timeout, ExpiryMode.INCREMENTAL) : null;
+        setTimeout(timeout);
+    }
+
+    /**
+     * @return the timeout
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @param timeout the timeout to set
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+
+        if (nearCache != null)
+            nearCache.setTimeout(timeout);
+    }
+
+    /**
+     * @return true if near cache is enabled
+     */
+    public boolean isNearCache() {
+        return nearCache != null;
+    }
+
+    /**
+     * @return true if value is timed out in the cluster
+     */
+    public boolean isReady(T value) {
+        long time = System.currentTimeMillis();
+        long ttl = Math.max(1, getTimeout().toMillis());
+        long deadline = time + ttl;
+
+        // Checked by this member within the timeout, deadlines in the cluster are only ever extended
+        if (nearCache != null && !nearCache.isReady(value)) {
+            cache.putAsync(value, deadline, ttl, TimeUnit.MILLISECONDS);
+
+            if (logger.isTraceEnabled())
+                logger.trace(String.format("'%s' timed out: false (near cache)", value));
+
+            return false;
+        }
+
+        // Set timeout value, getting the previous in the same round trip
+        Long timeout = cache.put(value, deadline, ttl, TimeUnit.MILLISECONDS);
+
+        // Timed out, or evicted by Hazelcast
+        boolean ready = timeout == null || timeout < time;
+
+        if (logger.isTraceEnabled())
+            logger.trace(String.format("'%s' timed out: %s", value, ready));
+
+        return ready;
+    }
+}
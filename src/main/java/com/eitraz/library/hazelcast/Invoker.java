@@ -0,0 +1,108 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import org.apache.log4j.Logger;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Invokes received method calls in order on its own thread.
+ * The queue outlives the thread, calls received while stopped are invoked when started again.
+ */
+class Invoker {
+    private static final Logger logger = Logger.getLogger(Invoker.class);
+
+    private final String name;
+    private final Consumer<MethodCall> target;
+    private final MethodCallQueue methodCalls;
+
+    private volatile Thread thread;
+
+    Invoker(String name, Consumer<MethodCall> target, MethodCallQueue methodCalls) {
+        this.name = name;
+        this.target = target;
+        this.methodCalls = methodCalls;
+    }
+
+    /**
+     * @param methodCall call to invoke
+     * @param coalesce   true if the call replaces a queued call to the same method on the same object
+     * @param priority   lane to queue the call in
+     * @return call that was dropped or rejected because the queue is full, null if none
+     */
+    MethodCall offer(MethodCall methodCall, boolean coalesce, PriorityClass priority) {
+        return methodCalls.offer(methodCall, coalesce, priority);
+    }
+
+    /**
+     * Move calls not yet invoked to another collection
+     */
+    void drainTo(Collection<MethodCall> methodCalls) {
+        this.methodCalls.drainTo(methodCalls);
+    }
+
+    /**
+     * Move calls not yet invoked matching the filter to another collection
+     */
+    void drainTo(Collection<MethodCall> methodCalls, Predicate<MethodCall> filter) {
+        this.methodCalls.drainTo(methodCalls, filter);
+    }
+
+    MethodCallQueue getQueue() {
+        return methodCalls;
+    }
+
+    synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, name);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop and wait for the call being invoked, so a thread started again never runs alongside the previous one
+     */
+    synchronized void stop() {
+        Thread stopped = thread;
+        thread = null;
+
+        if (stopped != null) {
+            methodCalls.wakeUp();
+
+            // Stopped by an invoked call
+            if (stopped == Thread.currentThread())
+                return;
+
+            try {
+                stopped.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        logger.info("Started");
+
+        while (thread == Thread.currentThread()) {
+            try {
+                MethodCall methodCall = methodCalls.poll(1, TimeUnit.SECONDS);
+
+                // Execute
+                if (methodCall != null)
+                    target.accept(methodCall);
+
+            } catch (InterruptedException e) {
+                logger.error(e);
+            } catch (HazelcastInstanceNotActiveException ignored) {
+                break;
+            }
+        }
+
+        logger.info("Stopped");
+    }
+}
@@ -0,0 +1,105 @@
+package com.eitraz.library.hazelcast;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, in the style of HDR histograms.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} buckets, so a recorded value is reported within 1/16 of
+ * its true value. Recording is lock free and does not allocate.
+ */
+class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos latency to record, negative values are recorded as zero
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * @return snapshot of the histogram, percentiles in nanoseconds
+     */
+    LatencySnapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        return new LatencySnapshot(
+                total,
+                total > 0 ? sum.sum() / total : 0,
+                percentile(snapshot, total, 0.5),
+                percentile(snapshot, total, 0.9),
+                percentile(snapshot, total, 0.99),
+                percentile(snapshot, total, 0.999),
+                max.get());
+    }
+
+    /**
+     * @return upper bound of the bucket holding the percentile, 0 if empty
+     */
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return upperBound(i);
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * @return bucket of the value, values below 2 * {@value #SUB_BUCKETS} have a bucket of their own
+     */
+    static int index(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return (shift + 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+    }
+
+    /**
+     * @return largest value in the bucket
+     */
+    static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        long mantissa = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
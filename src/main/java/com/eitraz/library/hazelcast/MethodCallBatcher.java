@@ -0,0 +1,212 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.Duration;
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Collects method calls and publishes them together when the batch is full or when the oldest
+ * call has waited for the maximum delay, whichever comes first. A batch holds at most the maximum number of calls.
+ * <p>
+ * Once stopped, or if the publisher thread has exited, calls are published on the calling thread instead.
+ */
+class MethodCallBatcher {
+    private static final Logger logger = Logger.getLogger(MethodCallBatcher.class);
+
+    private final int maxCalls;
+    private final long maxDelayNanos;
+    private final Consumer<List<MethodCall>> publisher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private List<MethodCall> pending;
+    private long firstCallTime;
+    private volatile Thread thread;
+    private volatile boolean closed;
+
+    MethodCallBatcher(int maxCalls, Duration maxDelay, Consumer<List<MethodCall>> publisher) {
+        this.maxCalls = maxCalls;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.publisher = publisher;
+        this.pending = new ArrayList<>(maxCalls);
+    }
+
+    /**
+     * @param methodCall call to publish with the next batch
+     */
+    void add(MethodCall methodCall) {
+        List<MethodCall> calls;
+
+        lock.lock();
+        try {
+            // Nobody left to publish, publish after any calls left behind
+            if (closed) {
+                calls = takePending();
+                calls.add(methodCall);
+            } else {
+                calls = null;
+
+                if (pending.isEmpty()) {
+                    firstCallTime = System.nanoTime();
+                    changed.signal();
+                }
+
+                pending.add(methodCall);
+
+                if (pending.size() >= maxCalls)
+                    changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (calls != null)
+            publish(calls);
+    }
+
+    synchronized void start() {
+        if (thread == null) {
+            closed = false;
+            thread = new Thread(this::run, "HazelcastProxy publisher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stop and publish any calls left behind
+     */
+    synchronized void stop() {
+        Thread stopped = thread;
+        thread = null;
+
+        if (stopped != null) {
+            // Wake the thread if waiting for a batch, a batch being published is left to finish
+            lock.lock();
+            try {
+                changed.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                stopped.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Calls added from now on are published by the caller
+        List<MethodCall> calls;
+        lock.lock();
+        try {
+            closed = true;
+            calls = takePending();
+        } finally {
+            lock.unlock();
+        }
+
+        publish(calls);
+    }
+
+    private void run() {
+        logger.info("Started");
+
+        while (thread == Thread.currentThread()) {
+            try {
+                List<MethodCall> calls = awaitBatch();
+                if (calls != null)
+                    publisher.accept(calls);
+            } catch (HazelcastInstanceNotActiveException e) {
+                // Callers publish themselves from now on
+                close();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Failed to publish batch", e);
+            }
+        }
+
+        logger.info("Stopped");
+    }
+
+    /**
+     * @return calls when the batch is full or the oldest call has waited long enough, null when stopped
+     */
+    private List<MethodCall> awaitBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty() && isRunning())
+                changed.awaitUninterruptibly();
+
+            long remaining = firstCallTime + maxDelayNanos - System.nanoTime();
+            while (pending.size() < maxCalls && remaining > 0 && isRunning())
+                remaining = awaitNanos(remaining);
+
+            // Calls left behind are published by stop
+            return isRunning() ? takeBatch() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isRunning() {
+        return thread == Thread.currentThread();
+    }
+
+    private long awaitNanos(long nanos) {
+        try {
+            return changed.awaitNanos(nanos);
+        } catch (InterruptedException e) {
+            // Not used to stop, publish what is pending without failing the publish itself
+            return 0;
+        }
+    }
+
+    private void close() {
+        lock.lock();
+        try {
+            closed = true;
+            if (isRunning())
+                thread = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publish in batches of at most the maximum number of calls
+     */
+    private void publish(List<MethodCall> calls) {
+        for (int from = 0; from < calls.size(); from += maxCalls) {
+            int to = Math.min(calls.size(), from + maxCalls);
+            publisher.accept(from == 0 && to == calls.size() ? calls : new ArrayList<>(calls.subList(from, to)));
+        }
+    }
+
+    /**
+     * @return at most the maximum number of calls, the oldest first, the others keep waiting
+     */
+    private List<MethodCall> takeBatch() {
+        if (pending.size() <= maxCalls)
+            return takePending();
+
+        List<MethodCall> batch = pending.subList(0, maxCalls);
+        List<MethodCall> calls = new ArrayList<>(batch);
+        batch.clear();
+        return calls;
+    }
+
+    private List<MethodCall> takePending() {
+        List<MethodCall> calls = pending;
+        pending = new ArrayList<>(maxCalls);
+        return calls;
+    }
+}
@@ -0,0 +1,340 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Optionally bounded queue of received calls, applying an {@link OverflowPolicy} when full.
+ * <p>
+ * Calls to {@link Coalesce} methods replace a call to the same method on the same object still in the queue.
+ * The old call is removed and the new one is added last, so it still runs after calls received before it.
+ * <p>
+ * Calls are kept in one lane per {@link PriorityClass}, each lane in order. Lanes are drained by weight, taking
+ * up to the weight of each lane in turn starting with the highest priority, so a call in a higher lane waits for
+ * at most the weights of the lower lanes while lower lanes are never starved. Calls in different lanes may
+ * be invoked out of order.
+ */
+class MethodCallQueue {
+    private static final int[] EQUAL_WEIGHTS = {1, 1, 1};
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int[] weights;
+    private final int[] credits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final Map<CoalesceKey, Node> coalescing = new HashMap<>();
+    private final Node[] heads;
+    private final Node[] tails;
+    private int size;
+
+    private int highWaterMark;
+    private long coalescedCalls;
+    private long wakeUps;
+
+    MethodCallQueue(int capacity, OverflowPolicy overflowPolicy) {
+        this(capacity, overflowPolicy, EQUAL_WEIGHTS);
+    }
+
+    /**
+     * @param weights max number of calls taken from each lane in turn, by {@link PriorityClass#ordinal()}
+     */
+    MethodCallQueue(int capacity, OverflowPolicy overflowPolicy, int[] weights) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.weights = weights.clone();
+        this.credits = weights.clone();
+        this.heads = new Node[weights.length];
+        this.tails = new Node[weights.length];
+    }
+
+    /**
+     * @param methodCall call to queue
+     * @param coalesce   true if the call replaces a queued call to the same method on the same object
+     * @return call that was dropped or rejected because the queue is full, null if none
+     */
+    MethodCall offer(MethodCall methodCall, boolean coalesce) {
+        return offer(methodCall, coalesce, PriorityClass.NORMAL);
+    }
+
+    /**
+     * @param methodCall call to queue
+     * @param coalesce   true if the call replaces a queued call to the same method on the same object
+     * @param priority   lane to queue the call in
+     * @return call that was dropped or rejected because the queue is full, null if none
+     */
+    MethodCall offer(MethodCall methodCall, boolean coalesce, PriorityClass priority) {
+        CoalesceKey key = coalesce ? new CoalesceKey(methodCall) : null;
+
+        lock.lock();
+        try {
+            MethodCall overflow = null;
+
+            supersede(key);
+
+            if (size >= capacity) {
+                switch (overflowPolicy) {
+                    case BLOCK:
+                        while (size >= capacity)
+                            notFull.awaitUninterruptibly();
+                        supersede(key);
+                        break;
+                    case DROP_OLDEST:
+                        overflow = unlink(oldestOfLowestPriority()).methodCall;
+                        break;
+                    default:
+                        return methodCall;
+                }
+            }
+
+            Node node = new Node(methodCall, key, priority.ordinal());
+            link(node);
+            if (key != null)
+                coalescing.put(key, node);
+
+            highWaterMark = Math.max(highWaterMark, size);
+            notEmpty.signal();
+
+            return overflow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return next call, null if none arrived within the timeout or woken up by {@link #wakeUp()}
+     */
+    MethodCall poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            long wakeUps = this.wakeUps;
+            while (size == 0) {
+                if (nanos <= 0 || wakeUps != this.wakeUps)
+                    return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            MethodCall methodCall = unlink(next()).methodCall;
+            notFull.signal();
+            return methodCall;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return from polls waiting for a call
+     */
+    void wakeUp() {
+        lock.lock();
+        try {
+            wakeUps++;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move all queued calls to another collection
+     */
+    void drainTo(Collection<MethodCall> collection) {
+        lock.lock();
+        try {
+            for (int lane = 0; lane < heads.length; lane++) {
+                while (heads[lane] != null)
+                    collection.add(unlink(heads[lane]).methodCall);
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move queued calls matching the filter to another collection, keeping the others in order
+     */
+    void drainTo(Collection<MethodCall> collection, Predicate<MethodCall> filter) {
+        lock.lock();
+        try {
+            for (int lane = 0; lane < heads.length; lane++) {
+                Node node = heads[lane];
+                while (node != null) {
+                    Node next = node.next;
+                    if (filter.test(node.methodCall))
+                        collection.add(unlink(node).methodCall);
+                    node = next;
+                }
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return largest number of calls queued at the same time since created or last reset
+     */
+    int getHighWaterMark() {
+        lock.lock();
+        try {
+            return highWaterMark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void resetHighWaterMark() {
+        lock.lock();
+        try {
+            highWaterMark = size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of queued calls replaced by a newer call
+     */
+    long getCoalescedCalls() {
+        lock.lock();
+        try {
+            return coalescedCalls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove queued call replaced by a newer call with the same key
+     */
+    private void supersede(CoalesceKey key) {
+        if (key == null)
+            return;
+
+        Node superseded = coalescing.get(key);
+        if (superseded != null) {
+            unlink(superseded);
+            coalescedCalls++;
+        }
+    }
+
+    /**
+     * @return head of the highest priority lane with credits left, refilling credits when all are used
+     */
+    private Node next() {
+        while (true) {
+            for (int lane = 0; lane < heads.length; lane++) {
+                if (heads[lane] != null && credits[lane] > 0) {
+                    credits[lane]--;
+                    return heads[lane];
+                }
+            }
+            System.arraycopy(weights, 0, credits, 0, credits.length);
+        }
+    }
+
+    private Node oldestOfLowestPriority() {
+        for (int lane = heads.length - 1; lane > 0; lane--) {
+            if (heads[lane] != null)
+                return heads[lane];
+        }
+        return heads[0];
+    }
+
+    private void link(Node node) {
+        Node tail = tails[node.lane];
+        if (tail == null) {
+            heads[node.lane] = node;
+        } else {
+            tail.next = node;
+            node.prev = tail;
+        }
+        tails[node.lane] = node;
+        size++;
+    }
+
+    private Node unlink(Node node) {
+        if (node.prev == null)
+            heads[node.lane] = node.next;
+        else
+            node.prev.next = node.next;
+
+        if (node.next == null)
+            tails[node.lane] = node.prev;
+        else
+            node.next.prev = node.prev;
+
+        node.prev = null;
+        node.next = null;
+        size--;
+
+        if (node.key != null)
+            coalescing.remove(node.key, node);
+
+        return node;
+    }
+
+    private static final class Node {
+        private final MethodCall methodCall;
+        private final CoalesceKey key;
+        private final int lane;
+        private Node prev;
+        private Node next;
+
+        private Node(MethodCall methodCall, CoalesceKey key, int lane) {
+            this.methodCall = methodCall;
+            this.key = key;
+            this.lane = lane;
+        }
+    }
+
+    private static final class CoalesceKey {
+        private final String objectReference;
+        private final int typeId;
+        private final int methodId;
+
+        private CoalesceKey(MethodCall methodCall) {
+            this.objectReference = methodCall.getObjectReference();
+            this.typeId = methodCall.getTypeId();
+            this.methodId = methodCall.getMethodId();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CoalesceKey))
+                return false;
+
+            CoalesceKey that = (CoalesceKey) o;
+            return typeId == that.typeId && methodId == that.methodId && objectReference.equals(that.objectReference);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * objectReference.hashCode() + typeId) + methodId;
+        }
+    }
+}
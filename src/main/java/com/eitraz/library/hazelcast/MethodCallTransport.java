@@ -0,0 +1,52 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+
+import com.hazelcast.core.Member;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Delivers published method calls to the members of the cluster
+ */
+interface MethodCallTransport {
+    /**
+     * @param receiver receives messages published by any member
+     */
+    void start(Receiver receiver);
+
+    void stop();
+
+    /**
+     * Announce that the local member hosts the object, transports not routing by host ignore this
+     */
+    default void host(String objectReference) {
+    }
+
+    /**
+     * Announce that the local member no longer hosts the object
+     */
+    default void unhost(String objectReference) {
+    }
+
+    /**
+     * @return members a call to the object is delivered to
+     */
+    Collection<Member> getMembers(String objectReference);
+
+    void publish(MethodCall methodCall);
+
+    /**
+     * @param methodCalls calls to publish together, in order
+     */
+    void publish(List<MethodCall> methodCalls);
+
+    interface Receiver {
+        /**
+         * @param message {@link MethodCall} or {@link HazelcastProxy.MethodCallBatch}
+         * @param local   true if published by the local member
+         */
+        void receive(Object message, boolean local);
+    }
+}
@@ -0,0 +1,168 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dispatch table for a proxied interface, mapping each method to a small integer id and a pre-resolved method handle.
+ * Ids are assigned in a deterministic order so every member builds the same table for the same interface.
+ */
+class MethodTable {
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final Comparator<Method> METHOD_ORDER = Comparator
+            .comparing(Method::getName)
+            .thenComparing(method -> Arrays.toString(method.getParameterTypes()))
+            .thenComparing(method -> method.getReturnType().getName());
+
+    private final int typeId;
+    private final Class<?> type;
+    private final Method[] methods;
+    private final MethodHandle[] handles;
+    private final boolean[] coalesce;
+    private final boolean[] readOnly;
+    private final DispatchPolicy[] dispatch;
+    private final PriorityClass[] priority;
+    private final boolean[] returnsVoid;
+    private final Map<Method, Integer> methodIds = new HashMap<>();
+
+    MethodTable(int typeId, Class<?> type) throws IllegalAccessException {
+        this.typeId = typeId;
+        this.type = type;
+
+        // Static methods are called on the interface, never through a proxy
+        methods = Arrays.stream(type.getMethods())
+                .filter(method -> !Modifier.isStatic(method.getModifiers()))
+                .toArray(Method[]::new);
+        Arrays.sort(methods, METHOD_ORDER);
+
+        handles = new MethodHandle[methods.length];
+        coalesce = new boolean[methods.length];
+        readOnly = new boolean[methods.length];
+        dispatch = new DispatchPolicy[methods.length];
+        priority = new PriorityClass[methods.length];
+        returnsVoid = new boolean[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            handles[i] = createHandle(methods[i]);
+            coalesce[i] = methods[i].isAnnotationPresent(Coalesce.class);
+            readOnly[i] = methods[i].isAnnotationPresent(ReadOnly.class);
+
+            Dispatch annotation = methods[i].getAnnotation(Dispatch.class);
+            dispatch[i] = annotation != null ? annotation.value() : null;
+
+            Priority priorityAnnotation = methods[i].getAnnotation(Priority.class);
+            priority[i] = priorityAnnotation != null ? priorityAnnotation.value() : null;
+            returnsVoid[i] = HazelcastProxy.isReturnTypeVoid(methods[i]);
+            methodIds.put(methods[i], i);
+        }
+    }
+
+    /**
+     * @return id of the type negotiated within the cluster
+     */
+    public int getTypeId() {
+        return typeId;
+    }
+
+    /**
+     * @return the proxied interface
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return id of the method, -1 if the method is not part of the interface
+     */
+    public int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return method with the given id
+     */
+    public Method getMethod(int methodId) {
+        return methods[methodId];
+    }
+
+    /**
+     * @return true if return type of the method is 'void'
+     */
+    public boolean isVoid(int methodId) {
+        return returnsVoid[methodId];
+    }
+
+    /**
+     * @return true if the method is annotated with {@link Coalesce}
+     */
+    public boolean isCoalesce(int methodId) {
+        return coalesce[methodId];
+    }
+
+    /**
+     * @return true if the method is annotated with {@link ReadOnly}
+     */
+    public boolean isReadOnly(int methodId) {
+        return readOnly[methodId];
+    }
+
+    /**
+     * @return policy set by {@link Dispatch}, null if not annotated
+     */
+    public DispatchPolicy getDispatch(int methodId) {
+        return dispatch[methodId];
+    }
+
+    /**
+     * @return priority set by {@link Priority}, null if not annotated
+     */
+    public PriorityClass getPriority(int methodId) {
+        return priority[methodId];
+    }
+
+    /**
+     * @return number of methods in the interface
+     */
+    public int size() {
+        return methods.length;
+    }
+
+    /**
+     * @param methodId id of the method to invoke
+     * @param object   object to invoke the method on
+     * @param args     arguments, may be null if the method has no parameters
+     * @return value returned by the method, null if the method is void
+     */
+    public Object invoke(int methodId, Object object, Object[] args) throws Throwable {
+        Object[] arguments = args != null ? args : NO_ARGS;
+        return (Object) handles[methodId].invokeExact(object, arguments);
+    }
+
+    /**
+     * @return handle of type (Object, Object[])Object, boxing the return value
+     */
+    static MethodHandle createHandle(Method method) throws IllegalAccessException {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // Public method declared in a non public type
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method);
+        }
+
+        return handle
+                .asType(handle.type().generic())
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(DISPATCH_TYPE);
+    }
+}
@@ -0,0 +1,140 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Bidirectional mapping between objects and their references, looked up in constant time.
+ * Objects are compared by identity and held weakly, an object that is no longer used elsewhere is removed
+ * from the registry when garbage collected.
+ */
+public class ObjectReferenceRegistry {
+    private final ConcurrentMap<ObjectKey, String> references = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ObjectKey> objects = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final Consumer<String> collectedListener;
+
+    public ObjectReferenceRegistry() {
+        this(reference -> {
+        });
+    }
+
+    /**
+     * @param collectedListener receives the reference of each object removed because it was garbage collected
+     */
+    public ObjectReferenceRegistry(Consumer<String> collectedListener) {
+        this.collectedListener = collectedListener;
+    }
+
+    /**
+     * @param reference reference to the object, replaces any object already registered with the reference
+     * @param object    object to register
+     * @return the object
+     */
+    public <O> O register(String reference, O object) {
+        purge();
+
+        ObjectKey key = new ObjectKey(object, reference, collected);
+
+        ObjectKey previous = objects.put(reference, key);
+        if (previous != null)
+            references.remove(previous, reference);
+
+        String previousReference = references.put(key, reference);
+        if (previousReference != null && !previousReference.equals(reference))
+            objects.remove(previousReference, key);
+
+        return object;
+    }
+
+    /**
+     * @param reference reference of the object to unregister
+     */
+    public void unregister(String reference) {
+        ObjectKey key = objects.remove(reference);
+        if (key != null)
+            references.remove(key, reference);
+
+        purge();
+    }
+
+    /**
+     * @return reference to the object, null if not registered
+     */
+    public String getReference(Object object) {
+        return references.get(new ObjectKey(object, null, null));
+    }
+
+    /**
+     * @return object registered with the reference, null if not registered or garbage collected
+     */
+    @SuppressWarnings("unchecked")
+    public <O> O getObject(String reference) {
+        ObjectKey key = objects.get(reference);
+        return key != null ? (O) key.get() : null;
+    }
+
+    /**
+     * @return references of all registered objects
+     */
+    public Set<String> getReferences() {
+        purge();
+        return Collections.unmodifiableSet(objects.keySet());
+    }
+
+    /**
+     * @return number of registered objects, including objects collected but not yet purged
+     */
+    public int size() {
+        purge();
+        return objects.size();
+    }
+
+    /**
+     * Remove objects that have been garbage collected
+     */
+    private void purge() {
+        Object collected;
+        while ((collected = this.collected.poll()) != null) {
+            ObjectKey key = (ObjectKey) collected;
+            references.remove(key);
+            if (objects.remove(key.reference, key))
+                collectedListener.accept(key.reference);
+        }
+    }
+
+    /**
+     * Weak reference compared by the identity of the referent
+     */
+    private static final class ObjectKey extends WeakReference<Object> {
+        private final String reference;
+        private final int hashCode;
+
+        private ObjectKey(Object object, String reference, ReferenceQueue<Object> queue) {
+            super(object, queue);
+            this.reference = reference;
+            this.hashCode = System.identityHashCode(object);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ObjectKey))
+                return false;
+
+            Object object = get();
+            return object != null && object == ((ObjectKey) o).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
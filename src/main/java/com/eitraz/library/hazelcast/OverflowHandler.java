@@ -0,0 +1,13 @@
+package com.eitraz.library.hazelcast;
+
+/**
+ * Receives calls that did not fit in the invoker queue or the publish queue when using {@link OverflowPolicy#CALLBACK}
+ */
+public interface OverflowHandler {
+    /**
+     * Called on the Hazelcast listener thread for received calls and on the calling thread for published calls
+     *
+     * @param methodCall call that was not queued
+     */
+    void onOverflow(HazelcastProxy.MethodCall methodCall);
+}
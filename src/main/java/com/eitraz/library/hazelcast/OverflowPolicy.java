@@ -0,0 +1,26 @@
+package com.eitraz.library.hazelcast;
+
+/**
+ * What to do with a call when the invoker queue or the publish queue is full
+ */
+public enum OverflowPolicy {
+    /**
+     * Block the Hazelcast listener thread or the calling thread until there is room in the queue
+     */
+    BLOCK,
+
+    /**
+     * Drop the oldest call in the queue to make room, from the lowest priority lane holding calls in the invoker queue
+     */
+    DROP_OLDEST,
+
+    /**
+     * Drop the new call
+     */
+    DROP_NEWEST,
+
+    /**
+     * Hand the new call to the {@link OverflowHandler}
+     */
+    CALLBACK
+}
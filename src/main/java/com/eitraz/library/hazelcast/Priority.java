@@ -0,0 +1,18 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets the lane received calls to a proxied method are queued in. Takes precedence over the priority of the object,
+ * see {@link HazelcastProxy#setPriority(String, PriorityClass)}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Priority {
+    PriorityClass value();
+}
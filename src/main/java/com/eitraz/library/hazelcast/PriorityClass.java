@@ -0,0 +1,21 @@
+package com.eitraz.library.hazelcast;
+
+/**
+ * Lane a received call is queued in, see {@link Priority} and {@link HazelcastProxy#setPriorityWeight(PriorityClass, int)}
+ */
+public enum PriorityClass {
+    /**
+     * Control calls such as shutdown or config changes
+     */
+    HIGH,
+
+    /**
+     * Calls without a priority
+     */
+    NORMAL,
+
+    /**
+     * Bulk calls that may wait
+     */
+    LOW
+}
@@ -0,0 +1,204 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of a {@link HazelcastProxy}. Recording is lock free and does not allocate once
+ * the counters of a method table are created.
+ */
+public class ProxyMetrics implements HazelcastProxyMXBean {
+    private final HazelcastProxy proxy;
+
+    private final LongAdder publishedCalls = new LongAdder();
+    private final LongAdder receivedCalls = new LongAdder();
+    private final LongAdder invokedCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+
+    private final LatencyHistogram transitLatency = new LatencyHistogram();
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final LatencyHistogram invokeLatency = new LatencyHistogram();
+
+    private final ConcurrentMap<MethodTable, MethodCounters> methodCounters = new ConcurrentHashMap<>();
+
+    ProxyMetrics(HazelcastProxy proxy) {
+        this.proxy = proxy;
+    }
+
+    void published() {
+        publishedCalls.increment();
+    }
+
+    /**
+     * @param methodCall call queued for the invoker threads, stamped with the time it was queued
+     */
+    void received(MethodCall methodCall) {
+        receivedCalls.increment();
+
+        long nanoTime = System.nanoTime();
+        methodCall.setEnqueueTime(nanoTime);
+        transitLatency.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - methodCall.getPublishTime()));
+    }
+
+    /**
+     * @param methodCall call about to be invoked
+     * @return start time of the invocation
+     */
+    long invoking(MethodCall methodCall) {
+        long nanoTime = System.nanoTime();
+        if (methodCall.getEnqueueTime() != 0)
+            queueLatency.record(nanoTime - methodCall.getEnqueueTime());
+        return nanoTime;
+    }
+
+    /**
+     * @param methodTable table of the invoked method
+     * @param startTime   start time of the invocation
+     * @param failed      true if the method threw
+     */
+    void invoked(MethodTable methodTable, int methodId, long startTime, boolean failed) {
+        invokeLatency.record(System.nanoTime() - startTime);
+        invokedCalls.increment();
+
+        MethodCounters counters = getCounters(methodTable);
+        counters.invocations[methodId].increment();
+
+        if (failed) {
+            failedCalls.increment();
+            counters.errors[methodId].increment();
+        }
+    }
+
+    /**
+     * Call that could not be resolved to an object or type
+     */
+    void failed() {
+        failedCalls.increment();
+    }
+
+    @Override
+    public String getTopicName() {
+        return proxy.getTopicName();
+    }
+
+    @Override
+    public long getPublishedCalls() {
+        return publishedCalls.sum();
+    }
+
+    @Override
+    public long getReceivedCalls() {
+        return receivedCalls.sum();
+    }
+
+    @Override
+    public long getInvokedCalls() {
+        return invokedCalls.sum();
+    }
+
+    @Override
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    @Override
+    public long getOverflowCalls() {
+        return proxy.getOverflowCalls();
+    }
+
+    @Override
+    public long getCoalescedCalls() {
+        return proxy.getCoalescedCalls();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return proxy.getQueueSize();
+    }
+
+    @Override
+    public int getQueueHighWaterMark() {
+        return proxy.getQueueHighWaterMark();
+    }
+
+    @Override
+    public int getPublishQueueSize() {
+        return proxy.getPublishQueueSize();
+    }
+
+    @Override
+    public LatencySnapshot getTransitLatency() {
+        return transitLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getQueueLatency() {
+        return queueLatency.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getInvokeLatency() {
+        return invokeLatency.snapshot();
+    }
+
+    @Override
+    public Map<String, Long> getInvocationsByMethod() {
+        Map<String, Long> invocations = new TreeMap<>();
+        methodCounters.forEach((methodTable, counters) -> counters.collect(methodTable, counters.invocations, invocations));
+        return invocations;
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByMethod() {
+        Map<String, Long> errors = new TreeMap<>();
+        methodCounters.forEach((methodTable, counters) -> counters.collect(methodTable, counters.errors, errors));
+        return errors;
+    }
+
+    @Override
+    public void reset() {
+        publishedCalls.reset();
+        receivedCalls.reset();
+        invokedCalls.reset();
+        failedCalls.reset();
+        transitLatency.reset();
+        queueLatency.reset();
+        invokeLatency.reset();
+        methodCounters.clear();
+        proxy.resetQueueHighWaterMark();
+    }
+
+    private MethodCounters getCounters(MethodTable methodTable) {
+        // Avoid locking in computeIfAbsent once created
+        MethodCounters counters = methodCounters.get(methodTable);
+        return counters != null ? counters : methodCounters.computeIfAbsent(methodTable, MethodCounters::new);
+    }
+
+    private static final class MethodCounters {
+        private final LongAdder[] invocations;
+        private final LongAdder[] errors;
+
+        private MethodCounters(MethodTable methodTable) {
+            invocations = new LongAdder[methodTable.size()];
+            errors = new LongAdder[methodTable.size()];
+            for (int i = 0; i < invocations.length; i++) {
+                invocations[i] = new LongAdder();
+                errors[i] = new LongAdder();
+            }
+        }
+
+        private void collect(MethodTable methodTable, LongAdder[] counters, Map<String, Long> values) {
+            for (int i = 0; i < counters.length; i++) {
+                long value = counters[i].sum();
+                if (value > 0)
+                    values.merge(methodTable.getType().getSimpleName() + "." + methodTable.getMethod(i).getName(), value, Long::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.eitraz.library.hazelcast;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a proxied method without side effects, such as a getter.
+ * The method is only invoked locally and never published, its result is cached per object and arguments until
+ * any other method is called on the object, locally or by another member.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadOnly {
+}
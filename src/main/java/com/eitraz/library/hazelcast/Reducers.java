@@ -0,0 +1,80 @@
+package com.eitraz.library.hazelcast;
+
+import com.hazelcast.core.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Reduce functions for the per-member values returned by {@link HazelcastProxy#scatter(Object, Class, Function)}
+ */
+public final class Reducers {
+    private Reducers() {
+    }
+
+    /**
+     * @return sum of the values as a long, null values are skipped
+     */
+    public static <R extends Number> Function<Map<Member, R>, Long> sumLong() {
+        return values -> {
+            long sum = 0;
+            for (R value : values.values()) {
+                if (value != null)
+                    sum += value.longValue();
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * @return sum of the values as a double, null values are skipped
+     */
+    public static <R extends Number> Function<Map<Member, R>, Double> sumDouble() {
+        return values -> {
+            double sum = 0;
+            for (R value : values.values()) {
+                if (value != null)
+                    sum += value.doubleValue();
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * @return first non null value in member order, null if there is none
+     */
+    public static <R> Function<Map<Member, R>, R> first() {
+        return values -> {
+            for (R value : values.values()) {
+                if (value != null)
+                    return value;
+            }
+            return null;
+        };
+    }
+
+    /**
+     * @return all values in member order
+     */
+    public static <R> Function<Map<Member, R>, List<R>> all() {
+        return values -> new ArrayList<>(values.values());
+    }
+
+    /**
+     * @param operator combines two values
+     * @return values combined in member order, null values are skipped, null if there is no value
+     */
+    public static <R> Function<Map<Member, R>, R> reduce(BinaryOperator<R> operator) {
+        return values -> {
+            R result = null;
+            for (R value : values.values()) {
+                if (value != null)
+                    result = result != null ? operator.apply(result, value) : value;
+            }
+            return result;
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Invokes a method call on a member through the executor service and sends back the returned value,
+ * see {@link HazelcastProxy#scatter(Object, Class, java.util.function.Function)}
+ */
+class RemoteInvocation implements Callable<RemoteInvocation.Result>, HazelcastInstanceAware, IdentifiedDataSerializable {
+    private String topicName;
+    private MethodCall methodCall;
+
+    private transient HazelcastInstance hazelcast;
+
+    RemoteInvocation() {
+    }
+
+    RemoteInvocation(String topicName, MethodCall methodCall) {
+        this.topicName = topicName;
+        this.methodCall = methodCall;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+    }
+
+    @Override
+    public Result call() throws Exception {
+        HazelcastProxy proxy = HazelcastProxy.getStarted(hazelcast, topicName, methodCall.getObjectReference());
+        if (proxy == null)
+            return new Result(false, null);
+
+        try {
+            return proxy.invokeForResult(methodCall);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ExecutionException(e);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return HazelcastProxyDataSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return HazelcastProxyDataSerializableFactory.REMOTE_INVOCATION;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(topicName);
+        methodCall.writeData(out);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        topicName = in.readUTF();
+        methodCall = new MethodCall();
+        methodCall.readData(in);
+    }
+
+    /**
+     * Value returned on a member, or nothing if the member does not host the object
+     */
+    static class Result implements IdentifiedDataSerializable {
+        private boolean hosted;
+        private Object value;
+
+        Result() {
+        }
+
+        Result(boolean hosted, Object value) {
+            this.hosted = hosted;
+            this.value = value;
+        }
+
+        /**
+         * @return true if the object is hosted on the member and the method was invoked
+         */
+        boolean isHosted() {
+            return hosted;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return HazelcastProxyDataSerializableFactory.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return HazelcastProxyDataSerializableFactory.REMOTE_RESULT;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeBoolean(hosted);
+            if (hosted)
+                out.writeObject(value);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            hosted = in.readBoolean();
+            if (hosted)
+                value = in.readObject();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.eitraz.library.hazelcast;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Results of {@link ReadOnly} methods by object reference, method and arguments.
+ * <p>
+ * Invalidating an object drops its results at once. A result computed while the object was invalidated ends up
+ * in the dropped results and is never returned. An object holds a bounded number of results, when full its results
+ * are dropped and cached again as they are used.
+ */
+class ResultCache {
+    private static final Object NULL = new Object();
+    private static final int DEFAULT_MAX_RESULTS = 1024;
+
+    private final ConcurrentMap<String, ConcurrentMap<Key, Object>> results = new ConcurrentHashMap<>();
+    private volatile int maxResults = DEFAULT_MAX_RESULTS;
+
+    /**
+     * @return results of the object to look up and store results in
+     */
+    ConcurrentMap<Key, Object> getResults(String objectReference) {
+        return results.computeIfAbsent(objectReference, reference -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Store a result, dropping the other results of the object when full
+     *
+     * @param results results of the object, see {@link #getResults(String)}
+     * @param value   value to store, see {@link #wrap(Object)}
+     */
+    void put(ConcurrentMap<Key, Object> results, Key key, Object value) {
+        if (results.size() >= maxResults)
+            results.clear();
+        results.put(key, value);
+    }
+
+    /**
+     * @return max number of results cached per object
+     */
+    int getMaxResults() {
+        return maxResults;
+    }
+
+    void setMaxResults(int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Drop all results of the object
+     */
+    void invalidate(String objectReference) {
+        results.remove(objectReference);
+    }
+
+    /**
+     * @return number of objects with cached results
+     */
+    int size() {
+        return results.size();
+    }
+
+    static Key key(int methodId, Object[] args) {
+        return new Key(methodId, args != null ? args.clone() : null);
+    }
+
+    /**
+     * @return value stored in the cache for the result
+     */
+    static Object wrap(Object result) {
+        return result != null ? result : NULL;
+    }
+
+    /**
+     * @return result for the value stored in the cache
+     */
+    static Object unwrap(Object value) {
+        return value != NULL ? value : null;
+    }
+
+    static final class Key {
+        private final int methodId;
+        private final Object[] args;
+        private final int hashCode;
+
+        private Key(int methodId, Object[] args) {
+            this.methodId = methodId;
+            this.args = args;
+            this.hashCode = 31 * methodId + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+
+            Key key = (Key) o;
+            return methodId == key.methodId && Arrays.deepEquals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
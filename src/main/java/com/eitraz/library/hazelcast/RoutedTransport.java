@@ -0,0 +1,216 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MapEvent;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.MemberAttributeEvent;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MembershipListener;
+import com.hazelcast.core.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes method calls only to the members hosting the called object.
+ * <p>
+ * Members announce the object references they host in a multi map, and every member listens to its own inbox
+ * topic. A call is published to the inbox of each hosting member, so members not hosting the object never
+ * receive or deserialize it. Inbox topics keep the order of calls from the same publisher.
+ * <p>
+ * When a member leaves, every member removes the departed member from the hosts it owns and the oldest member
+ * destroys its inbox.
+ */
+class RoutedTransport implements MethodCallTransport {
+    private final HazelcastInstance hazelcast;
+    private final String topicName;
+    private final int shards;
+    private final boolean reliable;
+    private final MultiMap<String, String> hosts;
+    private final TopicTransport inbox;
+
+    private final ConcurrentMap<String, Set<String>> hostsCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TopicTransport> inboxes = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile String hostsListenerId;
+    private volatile String membersListenerId;
+
+    RoutedTransport(HazelcastInstance hazelcast, String topicName, int shards, boolean reliable, boolean replayOnJoin) {
+        this.hazelcast = hazelcast;
+        this.topicName = topicName;
+        this.shards = shards;
+        this.reliable = reliable;
+        this.hosts = hazelcast.getMultiMap(topicName + ".hosts");
+        this.inbox = new TopicTransport(hazelcast, inboxName(localUuid()), shards, reliable, replayOnJoin);
+    }
+
+    @Override
+    public synchronized void start(Receiver receiver) {
+        if (hostsListenerId == null) {
+            hostsCache.clear();
+            hostsListenerId = hosts.addEntryListener(new HostsListener(), false);
+        }
+
+        if (membersListenerId == null)
+            membersListenerId = hazelcast.getCluster().addMembershipListener(new MembersListener());
+
+        inbox.start(receiver);
+    }
+
+    @Override
+    public synchronized void stop() {
+        inbox.stop();
+
+        if (hostsListenerId != null) {
+            hosts.removeEntryListener(hostsListenerId);
+            hostsListenerId = null;
+        }
+
+        if (membersListenerId != null) {
+            hazelcast.getCluster().removeMembershipListener(membersListenerId);
+            membersListenerId = null;
+        }
+    }
+
+    @Override
+    public void host(String objectReference) {
+        hosts.put(objectReference, localUuid());
+    }
+
+    @Override
+    public void unhost(String objectReference) {
+        hosts.remove(objectReference, localUuid());
+    }
+
+    @Override
+    public Collection<Member> getMembers(String objectReference) {
+        return getHostingMembers(objectReference);
+    }
+
+    @Override
+    public void publish(MethodCall methodCall) {
+        for (Member member : getHostingMembers(methodCall.getObjectReference())) {
+            getInbox(member).publish(methodCall);
+        }
+    }
+
+    @Override
+    public void publish(List<MethodCall> methodCalls) {
+        // Group by hosting member, keeping the order of the calls
+        Map<Member, List<MethodCall>> callsByMember = new LinkedHashMap<>();
+        for (MethodCall methodCall : methodCalls) {
+            for (Member member : getHostingMembers(methodCall.getObjectReference())) {
+                callsByMember.computeIfAbsent(member, m -> new ArrayList<>()).add(methodCall);
+            }
+        }
+
+        callsByMember.forEach((member, calls) -> getInbox(member).publish(calls));
+    }
+
+    /**
+     * @return members in the cluster hosting the object
+     */
+    private List<Member> getHostingMembers(String objectReference) {
+        Set<String> uuids = hostsCache.get(objectReference);
+        if (uuids == null) {
+            long invalidation = invalidations.get();
+            uuids = new HashSet<>(hosts.get(objectReference));
+
+            // Only cache while listening for changes
+            if (hostsListenerId != null) {
+                hostsCache.put(objectReference, uuids);
+
+                // Changed while reading, the hosts read may already be stale
+                if (invalidations.get() != invalidation)
+                    hostsCache.remove(objectReference, uuids);
+            }
+        }
+
+        List<Member> members = new ArrayList<>(uuids.size());
+        if (!uuids.isEmpty()) {
+            // Members that left the cluster are skipped
+            for (Member member : hazelcast.getCluster().getMembers()) {
+                if (uuids.contains(member.getUuid()))
+                    members.add(member);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * @return transport publishing to the inbox of the member, never started
+     */
+    private TopicTransport getInbox(Member member) {
+        return inboxes.computeIfAbsent(member.getUuid(),
+                uuid -> new TopicTransport(hazelcast, inboxName(uuid), shards, reliable, false));
+    }
+
+    /**
+     * Forget a member that left the cluster
+     */
+    private void removeMember(Member member) {
+        String uuid = member.getUuid();
+        TopicTransport inbox = inboxes.remove(uuid);
+
+        // Hosts are removed where owned, spreading the work over the members
+        for (String objectReference : hosts.localKeySet()) {
+            hosts.remove(objectReference, uuid);
+        }
+
+        Iterator<Member> members = hazelcast.getCluster().getMembers().iterator();
+        if (members.hasNext() && members.next().localMember()) {
+            if (inbox == null)
+                inbox = new TopicTransport(hazelcast, inboxName(uuid), shards, reliable, false);
+            inbox.destroy();
+        }
+    }
+
+    private String inboxName(String uuid) {
+        return topicName + "." + uuid;
+    }
+
+    private String localUuid() {
+        return hazelcast.getCluster().getLocalMember().getUuid();
+    }
+
+    private class HostsListener extends EntryAdapter<String, String> {
+        @Override
+        public void onEntryEvent(EntryEvent<String, String> event) {
+            invalidations.incrementAndGet();
+            hostsCache.remove(event.getKey());
+        }
+
+        @Override
+        public void onMapEvent(MapEvent event) {
+            invalidations.incrementAndGet();
+            hostsCache.clear();
+        }
+    }
+
+    private class MembersListener implements MembershipListener {
+        @Override
+        public void memberAdded(MembershipEvent event) {
+        }
+
+        @Override
+        public void memberRemoved(MembershipEvent event) {
+            removeMember(event.getMember());
+        }
+
+        @Override
+        public void memberAttributeChanged(MemberAttributeEvent event) {
+        }
+    }
+}
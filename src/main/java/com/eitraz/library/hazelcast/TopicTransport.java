@@ -0,0 +1,178 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCallBatch;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.hazelcast.topic.ReliableMessageListener;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Publishes method calls to every member through a topic, or several topics when sharded.
+ * <p>
+ * Sharded calls are spread over the topics by object reference with one listener per topic, calls to the same
+ * object always use the same topic and keep their order.
+ * <p>
+ * A reliable topic is backed by a ringbuffer. The transport tracks the sequence of the last received message and
+ * resumes from it when started again, so calls published while stopped are replayed instead of lost.
+ */
+class TopicTransport implements MethodCallTransport {
+    private static final Logger logger = Logger.getLogger(TopicTransport.class);
+
+    private final HazelcastInstance hazelcast;
+    private final List<ITopic<Object>> topics = new ArrayList<>();
+    private final boolean reliable;
+    private final boolean replayOnJoin;
+
+    private final AtomicLongArray sequences;
+    private final String[] listenerIds;
+
+    /**
+     * @param topicName name of the topic, shards are named with a suffix
+     * @param shards    number of topics to spread calls over
+     */
+    TopicTransport(HazelcastInstance hazelcast, String topicName, int shards, boolean reliable, boolean replayOnJoin) {
+        this.hazelcast = hazelcast;
+        this.reliable = reliable;
+        this.replayOnJoin = replayOnJoin;
+
+        for (int shard = 0; shard < shards; shard++) {
+            String name = shards == 1 ? topicName : topicName + "-" + shard;
+            topics.add(reliable ? hazelcast.getReliableTopic(name) : hazelcast.getTopic(name));
+        }
+
+        sequences = new AtomicLongArray(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            sequences.set(shard, -1);
+        }
+        listenerIds = new String[shards];
+    }
+
+    @Override
+    public synchronized void start(Receiver receiver) {
+        for (int shard = 0; shard < topics.size(); shard++) {
+            if (listenerIds[shard] == null) {
+                MessageListener<Object> listener = reliable ? new ReliableListener(receiver, shard) : new Listener(receiver);
+                listenerIds[shard] = topics.get(shard).addMessageListener(listener);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        for (int shard = 0; shard < topics.size(); shard++) {
+            if (listenerIds[shard] != null) {
+                topics.get(shard).removeMessageListener(listenerIds[shard]);
+                listenerIds[shard] = null;
+            }
+        }
+    }
+
+    /**
+     * Destroy the topics in the cluster, and their ringbuffers when reliable
+     */
+    void destroy() {
+        topics.forEach(ITopic::destroy);
+    }
+
+    @Override
+    public Collection<Member> getMembers(String objectReference) {
+        return hazelcast.getCluster().getMembers();
+    }
+
+    @Override
+    public void publish(MethodCall methodCall) {
+        getTopic(methodCall).publish(methodCall);
+    }
+
+    @Override
+    public void publish(List<MethodCall> methodCalls) {
+        if (topics.size() == 1) {
+            publish(topics.get(0), methodCalls);
+            return;
+        }
+
+        // Group by shard, keeping the order of the calls
+        Map<ITopic<Object>, List<MethodCall>> callsByTopic = new LinkedHashMap<>();
+        for (MethodCall methodCall : methodCalls) {
+            callsByTopic.computeIfAbsent(getTopic(methodCall), topic -> new ArrayList<>()).add(methodCall);
+        }
+        callsByTopic.forEach(this::publish);
+    }
+
+    private void publish(ITopic<Object> topic, List<MethodCall> methodCalls) {
+        if (methodCalls.size() == 1)
+            topic.publish(methodCalls.get(0));
+        else
+            topic.publish(new MethodCallBatch(methodCalls));
+    }
+
+    private ITopic<Object> getTopic(MethodCall methodCall) {
+        if (topics.size() == 1)
+            return topics.get(0);
+
+        return topics.get(HazelcastProxy.stripe(methodCall.getObjectReference(), topics.size()));
+    }
+
+    private class Listener implements MessageListener<Object> {
+        private final Receiver receiver;
+
+        private Listener(Receiver receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void onMessage(Message<Object> message) {
+            Member localMember = hazelcast.getCluster().getLocalMember();
+            receiver.receive(message.getMessageObject(), localMember.equals(message.getPublishingMember()));
+        }
+    }
+
+    private class ReliableListener extends Listener implements ReliableMessageListener<Object> {
+        private final int shard;
+
+        private ReliableListener(Receiver receiver, int shard) {
+            super(receiver);
+            this.shard = shard;
+        }
+
+        @Override
+        public long retrieveInitialSequence() {
+            long sequence = sequences.get(shard);
+
+            // Resume after the last received message
+            if (sequence >= 0)
+                return sequence + 1;
+
+            // Replay everything still in the ringbuffer
+            return replayOnJoin ? 0 : -1;
+        }
+
+        @Override
+        public void storeSequence(long sequence) {
+            sequences.set(shard, sequence);
+        }
+
+        @Override
+        public boolean isLossTolerant() {
+            // Continue from the oldest message still in the ringbuffer
+            return true;
+        }
+
+        @Override
+        public boolean isTerminal(Throwable failure) {
+            logger.error("Failed to receive message", failure);
+            return false;
+        }
+    }
+}
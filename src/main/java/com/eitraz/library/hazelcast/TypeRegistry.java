@@ -0,0 +1,79 @@
+package com.eitraz.library.hazelcast;
+
+import com.hazelcast.core.IMap;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Negotiates small integer ids for proxied interfaces within the cluster and caches their method tables.
+ * <p>
+ * Ids are claimed with {@link IMap#putIfAbsent(Object, Object)}, probing from a hash of the type name, so members
+ * registering the same interface always settle on the same id without any further coordination.
+ */
+class TypeRegistry {
+    private static final int ID_MASK = 0x3FFF;
+
+    private final IMap<Integer, String> types;
+    private final ConcurrentMap<Class<?>, MethodTable> tablesByType = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<MethodTable> tablesById = new AtomicReferenceArray<>(ID_MASK + 1);
+
+    TypeRegistry(IMap<Integer, String> types) {
+        this.types = types;
+    }
+
+    /**
+     * @return method table for the type, registering it in the cluster if needed
+     */
+    MethodTable getTable(Class<?> type) throws IllegalAccessException {
+        MethodTable table = tablesByType.get(type);
+        if (table == null) {
+            table = new MethodTable(register(type.getName()), type);
+
+            MethodTable existing = tablesByType.putIfAbsent(type, table);
+            if (existing != null)
+                return existing;
+
+            tablesById.compareAndSet(table.getTypeId(), null, table);
+        }
+        return table;
+    }
+
+    /**
+     * @return method table for a type id registered by any member
+     */
+    MethodTable getTable(int typeId) throws ClassNotFoundException, IllegalAccessException {
+        if (typeId < 0 || typeId > ID_MASK)
+            throw new ClassNotFoundException(String.format("No type registered with id %d", typeId));
+
+        // Indexed by id, looked up for every received call without boxing the id
+        MethodTable table = tablesById.get(typeId);
+        if (table == null) {
+            String name = types.get(typeId);
+            if (name == null)
+                throw new ClassNotFoundException(String.format("No type registered with id %d", typeId));
+
+            table = getTable(Class.forName(name, true, getClassLoader()));
+        }
+        return table;
+    }
+
+    private int register(String name) {
+        int id = name.hashCode() & ID_MASK;
+
+        while (true) {
+            String existing = types.putIfAbsent(id, name);
+
+            if (existing == null || existing.equals(name))
+                return id;
+
+            id = (id + 1) & ID_MASK;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : TypeRegistry.class.getClassLoader();
+    }
+}
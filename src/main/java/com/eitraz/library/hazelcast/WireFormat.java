@@ -0,0 +1,152 @@
+package com.eitraz.library.hazelcast;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+
+/**
+ * Compact encoding of the values sent by {@link HazelcastProxy}.
+ * Common argument types are written with a one byte tag and their raw value, anything else falls back to
+ * {@link ObjectDataOutput#writeObject(Object)}.
+ */
+final class WireFormat {
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte STRING = 10;
+    private static final byte BYTE_ARRAY = 11;
+    private static final byte OBJECT = 12;
+
+    private WireFormat() {
+    }
+
+    /**
+     * Write a non negative int using 1-5 bytes
+     */
+    static void writeVarInt(ObjectDataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(ObjectDataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static void writeArgs(ObjectDataOutput out, Object[] args) throws IOException {
+        if (args == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        writeVarInt(out, args.length);
+        for (Object arg : args) {
+            writeArg(out, arg);
+        }
+    }
+
+    /**
+     * @return arguments, null if there are none
+     */
+    static Object[] readArgs(ObjectDataInput in) throws IOException {
+        int length = readVarInt(in);
+        if (length == 0)
+            return null;
+
+        Object[] args = new Object[length];
+        for (int i = 0; i < length; i++) {
+            args[i] = readArg(in);
+        }
+        return args;
+    }
+
+    static void writeArg(ObjectDataOutput out, Object arg) throws IOException {
+        if (arg == null) {
+            out.writeByte(NULL);
+        } else if (arg instanceof String) {
+            out.writeByte(STRING);
+            out.writeUTF((String) arg);
+        } else if (arg instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) arg);
+        } else if (arg instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) arg);
+        } else if (arg instanceof Boolean) {
+            out.writeByte((Boolean) arg ? TRUE : FALSE);
+        } else if (arg instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) arg);
+        } else if (arg instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) arg);
+        } else if (arg instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) arg);
+        } else if (arg instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) arg);
+        } else if (arg instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) arg);
+        } else if (arg instanceof byte[]) {
+            out.writeByte(BYTE_ARRAY);
+            out.writeByteArray((byte[]) arg);
+        } else {
+            out.writeByte(OBJECT);
+            out.writeObject(arg);
+        }
+    }
+
+    static Object readArg(ObjectDataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case CHAR:
+                return in.readChar();
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return in.readUTF();
+            case BYTE_ARRAY:
+                return in.readByteArray();
+            case OBJECT:
+                return in.readObject();
+            default:
+                throw new IOException(String.format("Unknown argument tag %d", tag));
+        }
+    }
+}
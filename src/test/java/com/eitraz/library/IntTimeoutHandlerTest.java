@@ -0,0 +1,26 @@
+package com.eitraz.library;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntTimeoutHandlerTest {
+    public static final int MY_VALUE = 42;
+
+    @Test
+    public void testIsReady() throws InterruptedException {
+        IntTimeoutHandler timeoutHandler = new IntTimeoutHandler(new Duration(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+        assertTrue(timeoutHandler.isReady(-MY_VALUE));
+
+        Thread.sleep(750);
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+    }
+}
@@ -0,0 +1,81 @@
+package com.eitraz.library;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongTimeoutHandlerTest {
+    public static final long MY_VALUE = 42L;
+
+    @Test
+    public void testIsReady() throws InterruptedException {
+        LongTimeoutHandler timeoutHandler = new LongTimeoutHandler(new Duration(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+
+        Thread.sleep(750);
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+    }
+
+    @Test
+    public void testManyValues() throws InterruptedException {
+        LongTimeoutHandler timeoutHandler = new LongTimeoutHandler(Duration.ONE_MINUTE, 16, true);
+
+        for (long value = 0; value < 100000; value++) {
+            assertTrue(timeoutHandler.isReady(value * 31));
+        }
+        for (long value = 0; value < 100000; value++) {
+            assertFalse(timeoutHandler.isReady(value * 31));
+        }
+        assertEquals(100000, timeoutHandler.size());
+    }
+
+    @Test
+    public void testTimedOutDropped() throws InterruptedException {
+        LongTimeoutHandler timeoutHandler = new LongTimeoutHandler(new Duration(100, TimeUnit.MILLISECONDS), 16, false);
+
+        for (long value = 0; value < 100000; value++) {
+            timeoutHandler.isReady(value);
+        }
+
+        Thread.sleep(250);
+
+        // Timed out values are dropped to make room
+        for (long value = -1; value >= -100000; value--) {
+            assertTrue(timeoutHandler.isReady(value));
+        }
+        assertTrue(timeoutHandler.size() < 200000);
+    }
+
+    @Test
+    public void testDropKeepsWaitingValues() throws InterruptedException {
+        LongTimeoutHandler timeoutHandler = new LongTimeoutHandler(Duration.ONE_SECOND, 10000, false);
+
+        for (long value = 0; value < 10000; value++) {
+            assertTrue(timeoutHandler.isReady(value));
+        }
+        Thread.sleep(600);
+        for (long value = 10000; value < 20000; value++) {
+            assertTrue(timeoutHandler.isReady(value));
+        }
+        Thread.sleep(600);
+
+        // Fills the tables, dropping the first values and shifting back the others
+        for (long value = 20000; value < 30000; value++) {
+            assertTrue(timeoutHandler.isReady(value));
+        }
+        for (long value = 10000; value < 30000; value++) {
+            assertFalse(timeoutHandler.isReady(value));
+        }
+        for (long value = 0; value < 10000; value++) {
+            assertTrue(timeoutHandler.isReady(value));
+        }
+    }
+}
@@ -2,9 +2,20 @@ package com.eitraz.library;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TimeoutHandlerTest {
@@ -33,4 +44,221 @@ public class TimeoutHandlerTest {
 
         assertTrue(timeoutHandler.isReady(MY_VALUE));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentIsReady() throws InterruptedException {
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(Duration.ONE_MINUTE);
+
+        AtomicInteger ready = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < 10000; j++) {
+                    if (timeoutHandler.isReady(MY_VALUE + (j % 100)))
+                        ready.incrementAndGet();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Each value ready once
+        assertEquals(100, ready.get());
+    }
+
+    @Test
+    public void testNonConcurrentCache() throws InterruptedException {
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(500, TimeUnit.MILLISECONDS), new HashMap<>());
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+
+        Thread.sleep(750);
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+    }
+
+    @Test
+    public void testIncrementalExpiry() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(100, TimeUnit.MILLISECONDS), cache, ExpiryMode.INCREMENTAL);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+        }
+        assertEquals(100, cache.size());
+
+        Thread.sleep(250);
+
+        // Every call removes a few timed out values
+        for (int i = 0; i < 60; i++) {
+            timeoutHandler.isReady(MY_VALUE);
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSetTimeoutReschedules() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(Duration.ONE_MINUTE, cache, ExpiryMode.INCREMENTAL);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(timeoutHandler.isReady("waiting" + i));
+        }
+
+        // Ticks follow the new timeout
+        timeoutHandler.setTimeout(new Duration(100, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+        }
+        assertEquals(200, cache.size());
+
+        Thread.sleep(250);
+
+        // Waiting values go around the wheel too
+        for (int i = 0; i < 150; i++) {
+            timeoutHandler.isReady(MY_VALUE);
+        }
+        assertEquals(101, cache.size());
+    }
+
+    @Test
+    public void testRenewedNotExpired() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(200, TimeUnit.MILLISECONDS), cache, ExpiryMode.INCREMENTAL);
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(50);
+            assertFalse(timeoutHandler.isReady(MY_VALUE));
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBackgroundExpiry() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(100, TimeUnit.MILLISECONDS), cache, ExpiryMode.BACKGROUND);
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+            }
+            assertEquals(100, cache.size());
+
+            Thread.sleep(500);
+            assertEquals(0, cache.size());
+        } finally {
+            timeoutHandler.doStop();
+        }
+    }
+
+    @Test
+    public void testMaxSize() {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(Duration.ONE_MINUTE, cache);
+        timeoutHandler.setMaxSize(100);
+
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+        }
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void testMaxSizeSampledEvictsClosestToDeadline() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(Duration.ONE_MINUTE, cache);
+        timeoutHandler.setMaxSize(100);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(timeoutHandler.isReady("old" + i));
+        }
+
+        Thread.sleep(50);
+
+        // Samples go around the cache, reaching every old value
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(timeoutHandler.isReady("new" + i));
+        }
+        assertEquals(100, cache.size());
+        assertEquals(0, cache.keySet().stream().filter(value -> value.startsWith("old")).count());
+    }
+
+    @Test
+    public void testMaxSizeEvictsClosestToDeadline() throws InterruptedException {
+        Map<String, Long> cache = new ConcurrentHashMap<>();
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(640, TimeUnit.MILLISECONDS), cache, ExpiryMode.INCREMENTAL);
+        timeoutHandler.setMaxSize(10);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+        }
+
+        Thread.sleep(50);
+
+        // Renewed values are kept, the others are closest to their deadline
+        for (int i = 0; i < 5; i++) {
+            assertFalse(timeoutHandler.isReady(MY_VALUE + i));
+        }
+        for (int i = 10; i < 15; i++) {
+            assertTrue(timeoutHandler.isReady(MY_VALUE + i));
+        }
+
+        assertEquals(10, cache.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.containsKey(MY_VALUE + i));
+        }
+        for (int i = 10; i < 15; i++) {
+            assertTrue(cache.containsKey(MY_VALUE + i));
+        }
+    }
+
+    @Test
+    public void testBulkIsReady() throws InterruptedException {
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(new Duration(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(timeoutHandler.isReady("b"));
+
+        // Duplicates within a batch are ready once
+        BitSet ready = timeoutHandler.isReady(Arrays.asList("a", "b", "c", "a"));
+        assertEquals(3, ready.length());
+        assertTrue(ready.get(0));
+        assertFalse(ready.get(1));
+        assertTrue(ready.get(2));
+        assertFalse(ready.get(3));
+
+        Thread.sleep(750);
+
+        // Buffers are reused
+        assertSame(ready, timeoutHandler.isReady(Arrays.asList("a", "d"), ready));
+        assertEquals(2, ready.cardinality());
+
+        boolean[] buffer = new boolean[4];
+        assertSame(buffer, timeoutHandler.isReady(new String[]{"a", "e"}, buffer));
+        assertFalse(buffer[0]);
+        assertTrue(buffer[1]);
+    }
+
+    @Test
+    public void testBulkIsReadyNonConcurrentCache() {
+        TimeoutHandler<String> timeoutHandler = new TimeoutHandler<>(Duration.ONE_MINUTE, new HashMap<>());
+
+        boolean[] ready = timeoutHandler.isReady(new String[]{"a", "b", "a"}, null);
+        assertEquals(3, ready.length);
+        assertTrue(ready[0]);
+        assertTrue(ready[1]);
+        assertFalse(ready[2]);
+    }
+}
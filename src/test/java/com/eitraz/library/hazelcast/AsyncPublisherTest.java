@@ -0,0 +1,132 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncPublisherTest {
+    private final List<MethodCall> published = new ArrayList<>();
+    private AsyncPublisher publisher;
+
+    @After
+    public void after() {
+        if (publisher != null)
+            publisher.stop();
+    }
+
+    @Test
+    public void testPublishInOrder() throws Exception {
+        publisher = new AsyncPublisher(Integer.MAX_VALUE, OverflowPolicy.BLOCK, this::publish);
+        publisher.start();
+
+        for (int i = 0; i < 1000; i++) {
+            assertNull(publisher.offer(call("object-" + i)));
+        }
+        Thread.sleep(500);
+
+        assertReferences(1000);
+        assertEquals(0, publisher.size());
+    }
+
+    @Test
+    public void testPublishOnStop() throws Exception {
+        publisher = new AsyncPublisher(Integer.MAX_VALUE, OverflowPolicy.BLOCK, this::publish);
+
+        publisher.offer(call("object-0"));
+        publisher.offer(call("object-1"));
+        publisher.stop();
+        publisher = null;
+
+        assertReferences(2);
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        publisher = new AsyncPublisher(2, OverflowPolicy.DROP_NEWEST, this::publish);
+
+        MethodCall call = call("object-2");
+        assertNull(publisher.offer(call("object-0")));
+        assertNull(publisher.offer(call("object-1")));
+        assertSame(call, publisher.offer(call));
+        assertEquals(2, publisher.size());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        publisher = new AsyncPublisher(2, OverflowPolicy.DROP_OLDEST, this::publish);
+
+        MethodCall oldest = call("object-0");
+        publisher.offer(oldest);
+        publisher.offer(call("object-1"));
+        assertSame(oldest, publisher.offer(call("object-2")));
+        assertEquals(2, publisher.size());
+    }
+
+    @Test
+    public void testBlockUntilPublished() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        publisher = new AsyncPublisher(1, OverflowPolicy.BLOCK, calls -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            publish(calls);
+        });
+        publisher.start();
+
+        publisher.offer(call("object-0"));
+        Thread.sleep(100);
+        publisher.offer(call("object-1"));
+
+        CountDownLatch offered = new CountDownLatch(1);
+        new Thread(() -> {
+            publisher.offer(call("object-2"));
+            offered.countDown();
+        }).start();
+
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(offered.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPublishDirectlyWhenStopped() throws Exception {
+        publisher = new AsyncPublisher(1, OverflowPolicy.BLOCK, this::publish);
+        publisher.start();
+        publisher.stop();
+
+        // Neither queued nor blocked after stop
+        assertNull(publisher.offer(call("object-0")));
+        assertNull(publisher.offer(call("object-1")));
+        publisher = null;
+
+        assertReferences(2);
+    }
+
+    private synchronized void publish(List<MethodCall> methodCalls) {
+        published.addAll(methodCalls);
+    }
+
+    private synchronized void assertReferences(int count) {
+        assertEquals(count, published.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("object-" + i, published.get(i).getObjectReference());
+        }
+    }
+
+    private static MethodCall call(String objectReference) {
+        return new MethodCall(objectReference, 1, 0, null, true);
+    }
+}
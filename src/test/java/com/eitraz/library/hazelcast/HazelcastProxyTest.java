@@ -1,23 +1,35 @@
 package com.eitraz.library.hazelcast;
 
+import com.hazelcast.config.Config;
 import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.Member;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class HazelcastProxyTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
     private Map<String, Object> objects = new ConcurrentHashMap<>();
+    private HazelcastInstance hazelcast;
     private HazelcastProxy proxy;
 
     @Before
     public void before() {
-        proxy = getHazelcastProxy();
+        hazelcast = newHazelcastInstance();
+        proxy = getHazelcastProxy(hazelcast);
         proxy.doStart();
     }
 
@@ -27,6 +39,9 @@ public class HazelcastProxyTest {
             proxy.doStop();
             proxy = null;
         }
+
+        // Members left behind would join the cluster of the next test
+        hazelcast.shutdown();
     }
 
     public TestInterface proxy(TestObject object) {
@@ -45,16 +60,292 @@ public class HazelcastProxyTest {
 
         TestObject a = registerObject("a", new TestObject());
         assertNull(proxy(a).increase());
-        Thread.sleep(1000);
-        assertEquals(new Integer(1), a.getValue());
+        assertEventually(() -> assertEquals(new Integer(1), a.getValue()));
     }
 
     @Test
     public void testSetValue() throws Exception {
         TestObject a = registerObject("a", new TestObject());
         proxy(a).setValue(2);
-        Thread.sleep(1000);
+        assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        proxy.doStop();
+        proxy.setBatchSize(10);
+        proxy.doStart();
+
+        TestObject a = registerObject("a", new TestObject());
+        TestObject b = registerObject("b", new TestObject());
+        proxy(a).setValue(2);
+        proxy(b).setValue(3);
+        proxy(a).setValue(4);
+        assertEventually(() -> {
+            assertEquals(new Integer(4), a.getValue());
+            assertEquals(new Integer(3), b.getValue());
+        });
+    }
+
+    @Test
+    public void testAsyncPublish() throws Exception {
+        proxy.doStop();
+        proxy.setAsyncPublish(true);
+        proxy.doStart();
+
+        TestObject a = registerObject("a", new TestObject());
+        for (int value = 1; value <= 10; value++) {
+            proxy(a).setValue(value);
+        }
+        assertEventually(() -> {
+            assertEquals(new Integer(10), a.getValue());
+            assertEquals(0, proxy.getPublishQueueSize());
+        });
+    }
+
+    @Test
+    public void testInvokerThreads() throws Exception {
+        proxy.doStop();
+        proxy.setInvokerThreads(4);
+        proxy.doStart();
+
+        List<TestObject> testObjects = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestObject object = registerObject("object-" + i, new TestObject());
+            testObjects.add(object);
+
+            for (int value = 1; value <= 10; value++) {
+                proxy(object).setValue(value);
+            }
+        }
+
+        assertEventually(() -> {
+            for (TestObject object : testObjects) {
+                assertEquals(new Integer(10), object.getValue());
+            }
+        });
+    }
+
+    @Test
+    public void testRegistry() throws Exception {
+        HazelcastProxy registryProxy = new HazelcastProxy(hazelcast, "test-registry-topic");
+        registryProxy.doStart();
+
+        try {
+            TestObject a = registryProxy.register("a", new TestObject());
+            registryProxy.proxy(a, TestInterface.class).setValue(2);
+            assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+        } finally {
+            registryProxy.doStop();
+        }
+    }
+
+    @Test
+    public void testLocalFastPath() throws Exception {
+        proxy.doStop();
+        proxy.setLocalFastPath(true);
+        proxy.doStart();
+
+        TestObject a = registerObject("a", new TestObject());
+        for (int value = 1; value <= 10; value++) {
+            proxy(a).setValue(value);
+        }
+        proxy(a).increase();
+
+        assertEventually(() -> assertEquals(new Integer(11), a.getValue()));
+    }
+
+    @Test
+    public void testLocalFastPathOtherProxy() throws Exception {
+        // Would invoke the call too
+        proxy.doStop();
+
+        HazelcastProxy fastPath = getHazelcastProxy(hazelcast);
+        fastPath.setLocalFastPath(true);
+        fastPath.doStart();
+
+        HazelcastProxy other = getHazelcastProxy(hazelcast);
+        other.setReturnValue(false);
+        other.doStart();
+
+        try {
+            // Published by the other proxy, invoked by both
+            TestObject a = registerObject("a", new TestObject());
+            other.proxy(a, TestInterface.class).increase();
+
+            assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+        } finally {
+            fastPath.doStop();
+            other.doStop();
+        }
+    }
+
+    @Test
+    public void testTopicShards() throws Exception {
+        proxy.doStop();
+        proxy.setTopicShards(4);
+        proxy.setBatchSize(10);
+        proxy.doStart();
+
+        List<TestObject> testObjects = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TestObject object = registerObject("object-" + i, new TestObject());
+            testObjects.add(object);
+
+            for (int value = 1; value <= 10; value++) {
+                proxy(object).setValue(value);
+            }
+        }
+
+        assertEventually(() -> {
+            for (TestObject object : testObjects) {
+                assertEquals(new Integer(10), object.getValue());
+            }
+        });
+    }
+
+    @Test
+    public void testReliableResume() throws Exception {
+        proxy.doStop();
+        proxy.setReliable(true);
+        proxy.doStart();
+
+        TestObject a = registerObject("a", new TestObject());
+        proxy(a).setValue(2);
+        assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+
+        // Published while stopped
+        proxy.doStop();
+        proxy(a).setValue(3);
         assertEquals(new Integer(2), a.getValue());
+
+        proxy.doStart();
+        assertEventually(() -> assertEquals(new Integer(3), a.getValue()));
+    }
+
+    @Test
+    public void testRouted() throws Exception {
+        HazelcastProxy routedProxy = new HazelcastProxy(hazelcast, "test-routed-topic");
+        routedProxy.setRouted(true);
+        routedProxy.doStart();
+
+        try {
+            TestObject a = routedProxy.register("a", new TestObject());
+            routedProxy.proxy(a, TestInterface.class).setValue(2);
+            assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+        } finally {
+            routedProxy.doStop();
+        }
+    }
+
+    @Test
+    public void testHostedWhenTransportChanged() throws Exception {
+        proxy.host("a");
+
+        proxy.doStop();
+        proxy.setRouted(true);
+        proxy.doStart();
+
+        // Announced by the new transport
+        assertTrue(hazelcast.getMultiMap("test-topic.hosts").get("a").contains(hazelcast.getCluster().getLocalMember().getUuid()));
+    }
+
+    @Test
+    public void testScatter() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+        a.setValue(5);
+
+        Map<Member, Integer> values = proxy.scatter(a, TestInterface.class, TestInterface::getValue).get(5, TimeUnit.SECONDS);
+        assertEquals(1, values.size());
+        assertEquals(new Integer(5), values.values().iterator().next());
+
+        assertEquals(new Long(6), proxy.scatter(a, TestInterface.class, TestInterface::increase, Reducers.sumLong()).get(5, TimeUnit.SECONDS));
+        assertEquals(new Integer(6), a.getValue());
+    }
+
+    @Test
+    public void testScatterOtherProxy() throws Exception {
+        HazelcastProxy registryProxy = new HazelcastProxy(hazelcast, "test-scatter-topic");
+        registryProxy.doStart();
+
+        // Started last, does not resolve the object
+        HazelcastProxy other = new HazelcastProxy(hazelcast, "test-scatter-topic");
+        other.doStart();
+
+        try {
+            TestObject a = registryProxy.register("a", new TestObject());
+            a.setValue(5);
+
+            Map<Member, Integer> values = registryProxy.scatter(a, TestInterface.class, TestInterface::getValue).get(5, TimeUnit.SECONDS);
+            assertEquals(1, values.size());
+            assertEquals(new Integer(5), values.values().iterator().next());
+        } finally {
+            other.doStop();
+            registryProxy.doStop();
+        }
+    }
+
+    @Test
+    public void testReadOnlyCached() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+        a.setValue(2);
+
+        ReadOnlyInterface readOnly = proxy.proxy(a, ReadOnlyInterface.class);
+        assertEquals(new Integer(2), readOnly.getValue());
+
+        // Not seen until invalidated
+        a.setValue(3);
+        assertEquals(new Integer(2), readOnly.getValue());
+
+        readOnly.setValue(4);
+        assertEventually(() -> assertEquals(new Integer(4), readOnly.getValue()));
+    }
+
+    @Test
+    public void testDispatchPolicies() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+
+        DispatchInterface dispatch = proxy.proxy(a, DispatchInterface.class);
+        assertEquals(new Integer(1), dispatch.increase());
+
+        // Not invoked on the local member, would have been invoked before the next call
+        dispatch.setValue(5);
+
+        proxy.setDispatchPolicy(TestInterface.class.getMethod("increase"), DispatchPolicy.ASYNC);
+        assertNull(proxy(a).increase());
+        assertEventually(() -> assertEquals(new Integer(2), a.getValue()));
+
+        // Not part of the proxied interface
+        assertEquals(DispatchPolicy.LOCAL, proxy.getDispatchPolicy(Object.class.getMethod("toString")));
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+        proxy(a).setValue(2);
+        proxy(a).setValue(3);
+
+        ProxyMetrics metrics = proxy.getMetrics();
+        assertEventually(() -> assertEquals(2, metrics.getInvokedCalls()));
+        assertEquals(2, metrics.getPublishedCalls());
+        assertEquals(0, metrics.getFailedCalls());
+        assertEquals(2, metrics.getInvokeLatency().getCount());
+        assertEquals(new Long(2), metrics.getInvocationsByMethod().get("TestInterface.setValue"));
+    }
+
+    @Test
+    public void testProxyClassReused() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+        TestObject b = registerObject("b", new TestObject());
+        assertSame(proxy(a).getClass(), proxy(b).getClass());
+    }
+
+    @Test
+    public void testObjectMethodsAreLocal() throws Exception {
+        TestObject a = registerObject("a", new TestObject());
+        TestInterface proxied = proxy(a);
+        assertEquals(a.hashCode(), proxied.hashCode());
+        assertEquals(a.toString(), proxied.toString());
     }
 
     private <O> O registerObject(String reference, O object) {
@@ -62,8 +353,29 @@ public class HazelcastProxyTest {
         return object;
     }
 
-    private HazelcastProxy getHazelcastProxy() {
-        return new HazelcastProxy(Hazelcast.newHazelcastInstance(), "test-topic") {
+    /**
+     * Retry the assertion until it passes or the timeout has passed
+     */
+    private static void assertEventually(Runnable assertion) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                assertion.run();
+                return;
+            } catch (AssertionError e) {
+                if (System.currentTimeMillis() > deadline)
+                    throw e;
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private static HazelcastInstance newHazelcastInstance() {
+        return Hazelcast.newHazelcastInstance(HazelcastProxyDataSerializableFactory.configure(new Config()));
+    }
+
+    private HazelcastProxy getHazelcastProxy(HazelcastInstance hazelcast) {
+        return new HazelcastProxy(hazelcast, "test-topic") {
             @Override
             protected String createObjectReference(Object object) {
                 for (Map.Entry<String, Object> entry : objects.entrySet()) {
@@ -91,7 +403,22 @@ public class HazelcastProxyTest {
         void setValue(Integer value);
     }
 
-    public static class TestObject implements TestInterface {
+    public interface ReadOnlyInterface {
+        @ReadOnly
+        Integer getValue();
+
+        void setValue(Integer value);
+    }
+
+    public interface DispatchInterface {
+        @Dispatch(DispatchPolicy.LOCAL)
+        Integer increase();
+
+        @Dispatch(DispatchPolicy.BROADCAST_EXCLUDING_SELF)
+        void setValue(Integer value);
+    }
+
+    public static class TestObject implements TestInterface, ReadOnlyInterface, DispatchInterface {
         private int value = 0;
 
         @Override
@@ -0,0 +1,65 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.Duration;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HazelcastTimeoutHandlerTest {
+    public static final String MY_VALUE = "myValue";
+
+    private HazelcastInstance hazelcast;
+
+    @Before
+    public void before() {
+        hazelcast = Hazelcast.newHazelcastInstance(new Config());
+    }
+
+    @After
+    public void after() {
+        hazelcast.shutdown();
+    }
+
+    @Test
+    public void testIsReady() throws InterruptedException {
+        HazelcastTimeoutHandler<String> timeoutHandler = new HazelcastTimeoutHandler<>(hazelcast, "test-timeouts",
+                new Duration(500, TimeUnit.MILLISECONDS));
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+
+        Thread.sleep(750);
+
+        assertTrue(timeoutHandler.isReady(MY_VALUE));
+        assertFalse(timeoutHandler.isReady(MY_VALUE));
+    }
+
+    @Test
+    public void testNearCache() throws InterruptedException {
+        IMap<String, Long> cache = hazelcast.getMap("test-near-cache-timeouts");
+        Duration timeout = new Duration(500, TimeUnit.MILLISECONDS);
+
+        HazelcastTimeoutHandler<String> a = new HazelcastTimeoutHandler<>(cache, timeout, true);
+        HazelcastTimeoutHandler<String> b = new HazelcastTimeoutHandler<>(cache, timeout, true);
+
+        assertTrue(a.isReady(MY_VALUE));
+        assertFalse(a.isReady(MY_VALUE));
+
+        // Seen by another handler in the cluster
+        assertFalse(b.isReady(MY_VALUE));
+
+        Thread.sleep(750);
+
+        assertTrue(b.isReady(MY_VALUE));
+        assertFalse(a.isReady(MY_VALUE));
+    }
+}
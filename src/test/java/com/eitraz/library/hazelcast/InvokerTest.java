@@ -0,0 +1,37 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class InvokerTest {
+    @Test
+    public void testStopWaitsForThread() throws Exception {
+        AtomicInteger invoked = new AtomicInteger();
+        Invoker invoker = new Invoker("test invoker", methodCall -> invoked.incrementAndGet(),
+                new MethodCallQueue(Integer.MAX_VALUE, OverflowPolicy.BLOCK));
+
+        invoker.start();
+        invoker.offer(call("a"), false, PriorityClass.NORMAL);
+        Thread.sleep(100);
+        assertEquals(1, invoked.get());
+
+        // Stopped thread no longer takes calls
+        invoker.stop();
+        invoker.offer(call("b"), false, PriorityClass.NORMAL);
+        Thread.sleep(100);
+        assertEquals(1, invoked.get());
+
+        invoker.start();
+        Thread.sleep(100);
+        assertEquals(2, invoked.get());
+        invoker.stop();
+    }
+
+    private static MethodCall call(String objectReference) {
+        return new MethodCall(objectReference, 1, 0, null, true);
+    }
+}
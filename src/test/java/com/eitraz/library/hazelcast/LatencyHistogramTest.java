@@ -0,0 +1,48 @@
+package com.eitraz.library.hazelcast;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testBuckets() throws Exception {
+        long previousUpperBound = -1;
+        for (int index = 0; index < 960; index++) {
+            long upperBound = LatencyHistogram.upperBound(index);
+            assertTrue(upperBound > previousUpperBound);
+            assertEquals(index, LatencyHistogram.index(upperBound));
+            assertEquals(index, LatencyHistogram.index(previousUpperBound + 1));
+            previousUpperBound = upperBound;
+        }
+        assertEquals(Long.MAX_VALUE, previousUpperBound);
+    }
+
+    @Test
+    public void testPrecision() throws Exception {
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            long upperBound = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+            assertTrue(upperBound >= value);
+            assertTrue(upperBound - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500, snapshot.getMean());
+        assertEquals(1000, snapshot.getMax());
+        assertTrue(Math.abs(snapshot.getP50() - 500) <= 500 / 16);
+        assertTrue(Math.abs(snapshot.getP99() - 990) <= 990 / 16);
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+    }
+}
@@ -0,0 +1,127 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.Duration;
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import com.hazelcast.core.HazelcastInstanceNotActiveException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class MethodCallBatcherTest {
+    private BlockingQueue<List<MethodCall>> published = new LinkedBlockingQueue<>();
+    private MethodCallBatcher batcher;
+
+    @After
+    public void after() {
+        if (batcher != null)
+            batcher.stop();
+    }
+
+    @Test
+    public void testFlushWhenFull() throws Exception {
+        batcher = start(3, Duration.ONE_MINUTE);
+
+        batcher.add(call("a"));
+        batcher.add(call("b"));
+        assertNull(published.poll(100, TimeUnit.MILLISECONDS));
+
+        batcher.add(call("c"));
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "a", "b", "c");
+    }
+
+    @Test
+    public void testFlushAfterDelay() throws Exception {
+        batcher = start(100, new Duration(50, TimeUnit.MILLISECONDS));
+
+        batcher.add(call("a"));
+        batcher.add(call("b"));
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "a", "b");
+    }
+
+    @Test
+    public void testFlushOnStop() throws Exception {
+        batcher = start(100, Duration.ONE_MINUTE);
+
+        batcher.add(call("a"));
+        batcher.stop();
+        batcher = null;
+
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "a");
+    }
+
+    @Test
+    public void testFlushOnStopInBatches() throws Exception {
+        batcher = new MethodCallBatcher(2, Duration.ONE_MINUTE, published::add);
+
+        batcher.add(call("a"));
+        batcher.add(call("b"));
+        batcher.add(call("c"));
+        batcher.add(call("d"));
+        batcher.add(call("e"));
+        batcher.stop();
+        batcher = null;
+
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "a", "b");
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "c", "d");
+        assertReferences(published.poll(1, TimeUnit.SECONDS), "e");
+    }
+
+    @Test
+    public void testPublishDirectlyWhenStopped() throws Exception {
+        batcher = start(100, Duration.ONE_MINUTE);
+        batcher.stop();
+
+        // Not left in the stopped batcher
+        batcher.add(call("a"));
+        batcher = null;
+
+        assertReferences(published.poll(0, TimeUnit.MILLISECONDS), "a");
+    }
+
+    @Test
+    public void testPublishDirectlyWhenNotActive() throws Exception {
+        // Fails the first batch only
+        AtomicBoolean failed = new AtomicBoolean();
+        batcher = new MethodCallBatcher(1, Duration.ONE_MINUTE, methodCalls -> {
+            if (!failed.getAndSet(true))
+                throw new HazelcastInstanceNotActiveException();
+            published.add(methodCalls);
+        });
+        batcher.start();
+
+        // Publisher thread exits
+        batcher.add(call("a"));
+        Thread.sleep(100);
+
+        batcher.add(call("b"));
+        assertReferences(published.poll(0, TimeUnit.MILLISECONDS), "b");
+    }
+
+    private MethodCallBatcher start(int maxCalls, Duration maxDelay) {
+        MethodCallBatcher batcher = new MethodCallBatcher(maxCalls, maxDelay, published::add);
+        batcher.start();
+        return batcher;
+    }
+
+    private static MethodCall call(String objectReference) {
+        return new MethodCall(objectReference, 1, 0, null, true);
+    }
+
+    private static void assertReferences(List<MethodCall> methodCalls, String... objectReferences) {
+        assertNotNull(methodCalls);
+
+        assertEquals(objectReferences.length, methodCalls.size());
+        for (int i = 0; i < objectReferences.length; i++) {
+            assertEquals(objectReferences[i], methodCalls.get(i).getObjectReference());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.eitraz.library.hazelcast;
+
+import com.eitraz.library.hazelcast.HazelcastProxy.MethodCall;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MethodCallQueueTest {
+    @Test
+    public void testDropOldest() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(2, OverflowPolicy.DROP_OLDEST);
+
+        MethodCall a = call("a");
+        assertNull(queue.offer(a, false));
+        assertNull(queue.offer(call("b"), false));
+        assertSame(a, queue.offer(call("c"), false));
+
+        assertEquals("b", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertEquals("c", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(2, OverflowPolicy.DROP_NEWEST);
+
+        assertNull(queue.offer(call("a"), false));
+        assertNull(queue.offer(call("b"), false));
+
+        MethodCall c = call("c");
+        assertSame(c, queue.offer(c, false));
+
+        assertEquals("a", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertEquals("b", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertNull(queue.poll(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBlock() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(1, OverflowPolicy.BLOCK);
+        queue.offer(call("a"), false);
+
+        CountDownLatch offered = new CountDownLatch(1);
+        new Thread(() -> {
+            queue.offer(call("b"), false);
+            offered.countDown();
+        }).start();
+
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+        assertEquals("a", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertTrue(offered.await(1, TimeUnit.SECONDS));
+        assertEquals("b", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+    }
+
+    @Test
+    public void testHighWaterMark() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+
+        queue.offer(call("a"), false);
+        queue.offer(call("b"), false);
+        queue.offer(call("c"), false);
+        queue.poll(0, TimeUnit.SECONDS);
+        assertEquals(3, queue.getHighWaterMark());
+
+        queue.resetHighWaterMark();
+        assertEquals(2, queue.getHighWaterMark());
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+
+        queue.offer(call("a", 0, 1), true);
+        queue.offer(call("b", 0, 1), true);
+        queue.offer(call("a", 1, 2), false);
+        queue.offer(call("a", 0, 3), true);
+        assertEquals(3, queue.size());
+        assertEquals(1, queue.getCoalescedCalls());
+
+        assertArgument(queue.poll(0, TimeUnit.SECONDS), "b", 1);
+        assertArgument(queue.poll(0, TimeUnit.SECONDS), "a", 2);
+        assertArgument(queue.poll(0, TimeUnit.SECONDS), "a", 3);
+
+        // Invoked calls are not replaced
+        queue.offer(call("a", 0, 4), true);
+        assertArgument(queue.poll(0, TimeUnit.SECONDS), "a", 4);
+    }
+
+    private static MethodCall call(String objectReference) {
+        return new MethodCall(objectReference, 1, 0, null, true);
+    }
+
+    @Test
+    public void testPriorityLanes() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(Integer.MAX_VALUE, OverflowPolicy.BLOCK, new int[]{2, 1, 1});
+
+        queue.offer(call("a"), false, PriorityClass.LOW);
+        queue.offer(call("b"), false, PriorityClass.NORMAL);
+        queue.offer(call("c"), false, PriorityClass.HIGH);
+        queue.offer(call("d"), false, PriorityClass.HIGH);
+        queue.offer(call("e"), false, PriorityClass.HIGH);
+
+        for (String objectReference : new String[]{"c", "d", "b", "a", "e"}) {
+            assertEquals(objectReference, queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        }
+        assertNull(queue.poll(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDropOldestOfLowestPriority() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(2, OverflowPolicy.DROP_OLDEST, new int[]{1, 1, 1});
+
+        MethodCall low = call("low");
+        queue.offer(call("high"), false, PriorityClass.HIGH);
+        queue.offer(low, false, PriorityClass.LOW);
+        assertSame(low, queue.offer(call("normal"), false, PriorityClass.NORMAL));
+
+        assertEquals("high", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertEquals("normal", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+    }
+
+    @Test
+    public void testDrainMatching() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+
+        queue.offer(call("a"), false);
+        queue.offer(call("b"), false);
+        queue.offer(call("c"), false, PriorityClass.HIGH);
+        queue.offer(call("b"), false, PriorityClass.LOW);
+
+        List<MethodCall> drained = new ArrayList<>();
+        queue.drainTo(drained, methodCall -> methodCall.getObjectReference().equals("b"));
+        assertEquals(2, drained.size());
+
+        assertEquals("c", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertEquals("a", queue.poll(0, TimeUnit.SECONDS).getObjectReference());
+        assertNull(queue.poll(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWakeUp() throws Exception {
+        MethodCallQueue queue = new MethodCallQueue(2, OverflowPolicy.BLOCK);
+
+        CountDownLatch returned = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                assertNull(queue.poll(10, TimeUnit.SECONDS));
+                returned.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        thread.start();
+
+        Thread.sleep(100);
+        queue.wakeUp();
+        assertTrue(returned.await(1, TimeUnit.SECONDS));
+    }
+
+    private static MethodCall call(String objectReference, int methodId, Object arg) {
+        return new MethodCall(objectReference, 1, methodId, new Object[]{arg}, true);
+    }
+
+    private static void assertArgument(MethodCall methodCall, String objectReference, Object arg) {
+        assertEquals(objectReference, methodCall.getObjectReference());
+        assertEquals(arg, methodCall.getArgs()[0]);
+    }
+}
@@ -0,0 +1,117 @@
+package com.eitraz.library.hazelcast;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MethodTableTest {
+    private MethodTable methodTable;
+
+    public MethodTableTest() throws IllegalAccessException {
+        methodTable = new MethodTable(1, TargetInterface.class);
+    }
+
+    @Test
+    public void testDeterministicIds() throws Exception {
+        MethodTable other = new MethodTable(1, TargetInterface.class);
+
+        for (Method method : TargetInterface.class.getMethods()) {
+            assertEquals(methodTable.getMethodId(method), other.getMethodId(method));
+            assertEquals(method, methodTable.getMethod(methodTable.getMethodId(method)));
+        }
+    }
+
+    @Test
+    public void testUnknownMethod() throws Exception {
+        assertEquals(-1, methodTable.getMethodId(Object.class.getMethod("toString")));
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        assertTrue(methodTable.isCoalesce(methodTable.getMethodId(TargetInterface.class.getMethod("setText", CharSequence.class))));
+        assertFalse(methodTable.isCoalesce(methodTable.getMethodId(TargetInterface.class.getMethod("getText"))));
+    }
+
+    @Test
+    public void testNullArgument() throws Throwable {
+        Target target = new Target();
+        invoke(target, "setText", new Object[]{null}, CharSequence.class);
+        assertNull(target.text);
+    }
+
+    @Test
+    public void testSubtypeArgument() throws Throwable {
+        Target target = new Target();
+        invoke(target, "setText", new Object[]{"text"}, CharSequence.class);
+        assertEquals("text", target.text);
+    }
+
+    @Test
+    public void testPrimitiveArgument() throws Throwable {
+        assertEquals(5L, invoke(new Target(), "add", new Object[]{2, 3L}, int.class, long.class));
+    }
+
+    @Test
+    public void testNoArguments() throws Throwable {
+        Target target = new Target();
+        invoke(target, "setText", new Object[]{"text"}, CharSequence.class);
+        assertEquals("text", invoke(target, "getText", null));
+    }
+
+    @Test
+    public void testStaticMethodSkipped() throws Throwable {
+        MethodTable table = new MethodTable(2, FactoryInterface.class);
+
+        assertEquals(1, table.size());
+        assertEquals(-1, table.getMethodId(FactoryInterface.class.getMethod("create")));
+
+        int methodId = table.getMethodId(FactoryInterface.class.getMethod("getText"));
+        assertEquals("text", table.invoke(methodId, FactoryInterface.create(), null));
+    }
+
+    private Object invoke(Target target, String name, Object[] args, Class<?>... parameterTypes) throws Throwable {
+        int methodId = methodTable.getMethodId(TargetInterface.class.getMethod(name, parameterTypes));
+        return methodTable.invoke(methodId, target, args);
+    }
+
+    public interface TargetInterface {
+        @Coalesce
+        void setText(CharSequence text);
+
+        CharSequence getText();
+
+        long add(int a, long b);
+    }
+
+    public interface FactoryInterface {
+        static FactoryInterface create() {
+            return () -> "text";
+        }
+
+        CharSequence getText();
+    }
+
+    public static class Target implements TargetInterface {
+        private CharSequence text;
+
+        @Override
+        public void setText(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public CharSequence getText() {
+            return text;
+        }
+
+        @Override
+        public long add(int a, long b) {
+            return a + b;
+        }
+    }
+}
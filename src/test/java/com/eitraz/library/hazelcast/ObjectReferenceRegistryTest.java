@@ -0,0 +1,91 @@
+package com.eitraz.library.hazelcast;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ObjectReferenceRegistryTest {
+    private ObjectReferenceRegistry registry = new ObjectReferenceRegistry();
+
+    @Test
+    public void testRegister() throws Exception {
+        Object a = registry.register("a", new Object());
+
+        assertEquals("a", registry.getReference(a));
+        assertSame(a, registry.getObject("a"));
+        assertNull(registry.getReference(new Object()));
+        assertNull(registry.getObject("b"));
+    }
+
+    @Test
+    public void testIdentity() throws Exception {
+        String a = registry.register("a", new String("value"));
+        String b = registry.register("b", new String("value"));
+
+        assertEquals("a", registry.getReference(a));
+        assertEquals("b", registry.getReference(b));
+    }
+
+    @Test
+    public void testReplaceObject() throws Exception {
+        Object a = registry.register("a", new Object());
+        Object b = registry.register("a", new Object());
+
+        assertNull(registry.getReference(a));
+        assertEquals("a", registry.getReference(b));
+        assertSame(b, registry.getObject("a"));
+    }
+
+    @Test
+    public void testReplaceReference() throws Exception {
+        Object a = registry.register("a", new Object());
+        registry.register("b", a);
+
+        assertEquals("b", registry.getReference(a));
+        assertNull(registry.getObject("a"));
+        assertSame(a, registry.getObject("b"));
+    }
+
+    @Test
+    public void testUnregister() throws Exception {
+        Object a = registry.register("a", new Object());
+        registry.unregister("a");
+
+        assertNull(registry.getReference(a));
+        assertNull(registry.getObject("a"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testGarbageCollected() throws Exception {
+        registry.register("a", new Object());
+
+        for (int i = 0; i < 50 && registry.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(registry.getObject("a"));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testCollectedListener() throws Exception {
+        List<String> collected = new CopyOnWriteArrayList<>();
+        registry = new ObjectReferenceRegistry(collected::add);
+        registry.register("a", new Object());
+
+        for (int i = 0; i < 50 && registry.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(Collections.singletonList("a"), collected);
+    }
+}
@@ -0,0 +1,34 @@
+package com.eitraz.library.hazelcast;
+
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResultCacheTest {
+    @Test
+    public void testMaxResults() throws Exception {
+        ResultCache resultCache = new ResultCache();
+        resultCache.setMaxResults(10);
+
+        ConcurrentMap<ResultCache.Key, Object> results = resultCache.getResults("a");
+        for (int i = 0; i < 100; i++) {
+            resultCache.put(results, ResultCache.key(1, new Object[]{i}), ResultCache.wrap(i));
+            assertEquals(i % 10 + 1, results.size());
+        }
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ResultCache resultCache = new ResultCache();
+
+        resultCache.put(resultCache.getResults("a"), ResultCache.key(1, null), ResultCache.wrap(null));
+        assertEquals(1, resultCache.size());
+
+        resultCache.invalidate("a");
+        assertEquals(0, resultCache.size());
+        assertNull(resultCache.getResults("a").get(ResultCache.key(1, null)));
+    }
+}